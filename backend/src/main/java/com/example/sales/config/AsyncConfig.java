@@ -1,24 +1,97 @@
 package com.example.sales.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    // With virtual threads on, the I/O-bound executors below hand out a virtual thread per task and
+    // ResourceLimits bounds the calls to OpenAI, and Hikari the calls to the database, instead of the pool size
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Runs claimed document jobs; the backlog itself lives in the document_jobs table, not in this queue.
+    // Always platform threads: a job runs PDFBox itself whenever the extraction pool is saturated.
     @Bean(name = "documentProcessingExecutor")
-    public Executor documentProcessingExecutor() {
+    public Executor documentProcessingExecutor(@Value("${document.jobs.concurrency:2}") int concurrency) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(25);
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(concurrency);
         executor.setThreadNamePrefix("DocProcess-");
         executor.initialize();
         return executor;
     }
+
+    // Caller-runs keeps large-PDF fan-out bounded: when the queue is full the document thread extracts the range itself
+    @Bean(name = "pdfExtractionExecutor")
+    public Executor pdfExtractionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        int cores = Runtime.getRuntime().availableProcessors();
+        executor.setCorePoolSize(cores);
+        executor.setMaxPoolSize(cores);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("PdfExtract-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Ingest stages: chunk batches are written on a small pool, then embedded on a wider one since
+    // embedding is bound by the remote API's latency rather than by local CPU
+    @Bean(name = "ingestPersistExecutor")
+    public Executor ingestPersistExecutor(@Value("${rag.ingest.persist-concurrency:2}") int concurrency) {
+        if (virtualThreads) {
+            return virtualThreadExecutor("IngestPersist-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("IngestPersist-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "ingestEmbedExecutor")
+    public Executor ingestEmbedExecutor(@Value("${rag.ingest.embed-concurrency:8}") int concurrency) {
+        if (virtualThreads) {
+            return virtualThreadExecutor("IngestEmbed-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("IngestEmbed-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "analyzeJobExecutor")
+    public Executor analyzeJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("AnalyzeJob-");
+        executor.initialize();
+        return executor;
+    }
+
+    private Executor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
+    }
 }
@@ -0,0 +1,53 @@
+package com.example.sales.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+// On Java 21 a virtual thread that blocks inside synchronized code pins its carrier. The JDBC driver,
+// Hikari and the OpenAI HTTP client are not ours to audit, so pins are reported from JFR as they happen.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final int LOGGED_FRAMES = 8;
+
+    @Value("${resources.virtual-threads.pinned-threshold-ms:20}")
+    private long thresholdMillis = 20;
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(thresholdMillis))
+                .withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", event -> log.warn("Virtual thread pinned for {} ms at:\n  {}",
+                event.getDuration().toMillis(),
+                event.getStackTrace() == null ? "(no stack)" : event.getStackTrace().getFrames().stream()
+                        .limit(LOGGED_FRAMES)
+                        .map(this::describe)
+                        .collect(Collectors.joining("\n  "))));
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        stream.close();
+    }
+
+    private String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
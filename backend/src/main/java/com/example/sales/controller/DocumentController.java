@@ -3,25 +3,33 @@ package com.example.sales.controller;
 import com.example.sales.model.dto.DocumentResponse;
 import com.example.sales.model.entity.Document;
 import com.example.sales.model.entity.User;
+import com.example.sales.model.enums.ProcessingStatus;
 import com.example.sales.repository.DocumentRepository;
-import com.example.sales.service.DocumentProcessingService;
+import com.example.sales.service.DocumentProgressService;
+import com.example.sales.service.DocumentUploadService;
 import com.example.sales.service.FileService;
+import com.example.sales.service.UploadDescriptor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/v1/documents")
 @RequiredArgsConstructor
 public class DocumentController {
 
-    private final DocumentProcessingService documentProcessingService;
+    private final DocumentUploadService documentUploadService;
     private final DocumentRepository documentRepository;
     private final FileService fileService;
+    private final DocumentProgressService documentProgressService;
 
     @PostMapping("/upload")
     public ResponseEntity<DocumentResponse> uploadDocument(
@@ -29,18 +37,54 @@ public class DocumentController {
             @RequestParam(value = "dealId", required = false) String dealId,
             @AuthenticationPrincipal User user
     ) {
-        fileService.validateFile(file);
+        UploadDescriptor upload = fileService.describe(file);
+        fileService.validate(upload);
 
-        if (!fileService.isPdfFile(file)) {
+        if (!upload.isPdf()) {
             throw new IllegalArgumentException("Only PDF files are supported for document upload");
         }
 
-        Document document = documentProcessingService.createDocument(file, user, dealId);
-        documentProcessingService.processDocumentAsync(document.getId(), file, user);
+        Document document = documentUploadService.submit(file, upload, user, dealId);
 
         return ResponseEntity.accepted().body(toResponse(document));
     }
 
+    // Every file is validated before anything is stored, so one bad file rejects the whole batch
+    @PostMapping("/upload/batch")
+    public ResponseEntity<List<DocumentResponse>> uploadDocuments(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "dealId", required = false) String dealId,
+            @AuthenticationPrincipal User user
+    ) {
+        documentUploadService.checkBatchSize(files.size());
+
+        List<UploadDescriptor> uploads = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            UploadDescriptor upload = fileService.describe(file);
+            fileService.validate(upload);
+            if (!upload.isPdf()) {
+                throw new IllegalArgumentException(
+                        "Only PDF files are supported for document upload: " + upload.fileName());
+            }
+            uploads.add(upload);
+        }
+
+        List<DocumentResponse> responses = documentUploadService.submitAll(files, uploads, user, dealId).stream()
+                .map(this::toResponse)
+                .toList();
+        return ResponseEntity.accepted().body(responses);
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<DocumentResponse> resumeDocument(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user
+    ) {
+        Document document = documentRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new RuntimeException("Document not found"));
+        return ResponseEntity.accepted().body(toResponse(documentUploadService.resume(document)));
+    }
+
     @GetMapping
     public ResponseEntity<List<DocumentResponse>> listDocuments(
             @AuthenticationPrincipal User user
@@ -52,6 +96,31 @@ public class DocumentController {
         return ResponseEntity.ok(responses);
     }
 
+    // Progress for every document of the user; starts with the documents still queued or processing
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAllProgress(
+            @AuthenticationPrincipal User user
+    ) {
+        return documentProgressService.subscribe(user.getId(), null, () -> Stream.concat(
+                        documentRepository.findByUserAndProcessingStatus(user, ProcessingStatus.PENDING).stream(),
+                        documentRepository.findByUserAndProcessingStatus(user, ProcessingStatus.PROCESSING).stream())
+                .map(documentProgressService::snapshot)
+                .toList());
+    }
+
+    // Progress for one document; the stream closes after it completes or fails
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProgress(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user
+    ) {
+        documentRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new RuntimeException("Document not found"));
+        return documentProgressService.subscribe(user.getId(), id, () -> documentRepository.findById(id)
+                .map(document -> List.of(documentProgressService.snapshot(document)))
+                .orElse(List.of()));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<DocumentResponse> getDocument(
             @PathVariable Long id,
@@ -74,6 +143,7 @@ public class DocumentController {
                 .fileSize(document.getFileSize())
                 .createdAt(document.getCreatedAt())
                 .dealId(document.getDeal() != null ? document.getDeal().getDealId() : null)
+                .duplicateOfId(document.getSourceDocument() != null ? document.getSourceDocument().getId() : null)
                 .build();
     }
 }
@@ -1,29 +1,150 @@
 package com.example.sales.controller;
 
+import com.example.sales.exception.AnalyzeJobNotCompletedException;
+import com.example.sales.exception.CsvValidationException;
+import com.example.sales.model.dto.AnalysisStreamRecord;
+import com.example.sales.model.dto.AnalyzeJobResponse;
 import com.example.sales.model.dto.AnalyzeResponse;
 import com.example.sales.model.entity.User;
+import com.example.sales.model.enums.ProcessingStatus;
+import com.example.sales.service.AnalyzeJob;
+import com.example.sales.service.AnalyzeJobService;
 import com.example.sales.service.SalesService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/sales")
 @RequiredArgsConstructor
+@Slf4j
 public class SalesController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int RECORDS_PER_FLUSH = 50;
+
     private final SalesService salesService;
+    private final AnalyzeJobService analyzeJobService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/analyze")
     public ResponseEntity<AnalyzeResponse> analyze(
             @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "bulkLoad", defaultValue = "false") boolean bulkLoad,
             @AuthenticationPrincipal User user
     ) {
-        AnalyzeResponse response = salesService.analyze(files, user);
+        AnalyzeResponse response = salesService.analyze(files, user, bulkLoad);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/analyze/stream")
+    public ResponseEntity<StreamingResponseBody> analyzeStream(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "bulkLoad", defaultValue = "false") boolean bulkLoad,
+            @AuthenticationPrincipal User user
+    ) {
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(outputStream);
+            try {
+                AnalyzeResponse response = salesService.analyze(files, user, bulkLoad,
+                        deal -> writer.write(AnalysisStreamRecord.deal(deal)));
+                writer.write(AnalysisStreamRecord.summary(response));
+            } catch (CsvValidationException e) {
+                // Files are validated before their first batch commits, so none of this file's deals were sent
+                writer.write(AnalysisStreamRecord.error(e));
+            } catch (RuntimeException e) {
+                // Deal records already sent belong to committed batches; the failure is reported as the trailer
+                log.error("Streaming analysis failed for user {}", user.getEmail(), e);
+                writer.write(AnalysisStreamRecord.error(e.getMessage()));
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    @PostMapping("/analyze/jobs")
+    public ResponseEntity<AnalyzeJobResponse> submitAnalyzeJob(
+            @RequestParam("files") List<MultipartFile> files,
+            @AuthenticationPrincipal User user
+    ) {
+        AnalyzeJob job = analyzeJobService.submit(files, user);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/sales/analyze/jobs/" + job.getId()))
+                .body(toResponse(job));
+    }
+
+    @GetMapping("/analyze/jobs/{jobId}")
+    public ResponseEntity<AnalyzeJobResponse> getAnalyzeJob(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(toResponse(analyzeJobService.getJob(jobId, user)));
+    }
+
+    @GetMapping("/analyze/jobs/{jobId}/results")
+    public ResponseEntity<AnalyzeResponse> getAnalyzeJobResults(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal User user
+    ) {
+        AnalyzeJob job = analyzeJobService.getJob(jobId, user);
+        if (job.getStatus() != ProcessingStatus.COMPLETED) {
+            throw new AnalyzeJobNotCompletedException(jobId, job.getStatus().name());
+        }
+        return ResponseEntity.ok(job.getResult());
+    }
+
+    private AnalyzeJobResponse toResponse(AnalyzeJob job) {
+        return AnalyzeJobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus().name())
+                .rowsProcessed(job.getRowsProcessed())
+                .rowsFailed(job.getRowsFailed())
+                .etaSeconds(job.getEtaSeconds())
+                .rowErrors(job.getRowErrors())
+                .errorMessage(job.getErrorMessage())
+                .submittedAt(job.getSubmittedAt())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+
+    private class NdjsonWriter {
+
+        private final OutputStream output;
+        private int pendingRecords;
+
+        NdjsonWriter(OutputStream output) {
+            this.output = new BufferedOutputStream(output);
+        }
+
+        void write(AnalysisStreamRecord record) {
+            try {
+                output.write(objectMapper.writeValueAsBytes(record));
+                output.write('\n');
+                if (++pendingRecords >= RECORDS_PER_FLUSH) {
+                    flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write analysis stream", e);
+            }
+        }
+
+        void flush() throws IOException {
+            output.flush();
+            pendingRecords = 0;
+        }
+    }
 }
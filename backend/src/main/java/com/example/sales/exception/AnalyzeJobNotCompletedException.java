@@ -0,0 +1,8 @@
+package com.example.sales.exception;
+
+public class AnalyzeJobNotCompletedException extends RuntimeException {
+
+    public AnalyzeJobNotCompletedException(String jobId, String status) {
+        super(String.format("Analyze job '%s' has no results yet. Current status: %s", jobId, status));
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.sales.exception;
+
+public class AnalyzeJobNotFoundException extends RuntimeException {
+
+    public AnalyzeJobNotFoundException(String jobId) {
+        super(String.format("Analyze job '%s' not found", jobId));
+    }
+}
@@ -10,17 +10,20 @@ public class CsvValidationException extends RuntimeException {
 
     private final int rowNumber;
     private final Map<String, String> fieldErrors;
+    private final List<RowError> rowErrors;
 
     public CsvValidationException(int rowNumber, Map<String, String> fieldErrors) {
         super(buildMessage(rowNumber, fieldErrors));
         this.rowNumber = rowNumber;
         this.fieldErrors = fieldErrors;
+        this.rowErrors = List.of(new RowError(rowNumber, fieldErrors));
     }
 
     public CsvValidationException(List<RowError> rowErrors) {
         super(buildMessage(rowErrors));
         this.rowNumber = rowErrors.isEmpty() ? 0 : rowErrors.get(0).rowNumber();
         this.fieldErrors = rowErrors.isEmpty() ? Map.of() : rowErrors.get(0).fieldErrors();
+        this.rowErrors = List.copyOf(rowErrors);
     }
 
     private static String buildMessage(int rowNumber, Map<String, String> fieldErrors) {
@@ -0,0 +1,8 @@
+package com.example.sales.exception;
+
+public class DocumentNotResumableException extends RuntimeException {
+
+    public DocumentNotResumableException(Long documentId, String reason) {
+        super(String.format("Document %d cannot be resumed: %s", documentId, reason));
+    }
+}
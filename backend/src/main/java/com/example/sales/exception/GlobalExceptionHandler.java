@@ -64,6 +64,21 @@ public class GlobalExceptionHandler {
         return buildErrorResponse("EMBEDDING_ERROR", ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(AnalyzeJobNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleAnalyzeJobNotFound(AnalyzeJobNotFoundException ex) {
+        return buildErrorResponse("JOB_NOT_FOUND", ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(AnalyzeJobNotCompletedException.class)
+    public ResponseEntity<Map<String, Object>> handleAnalyzeJobNotCompleted(AnalyzeJobNotCompletedException ex) {
+        return buildErrorResponse("JOB_NOT_COMPLETED", ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(DocumentNotResumableException.class)
+    public ResponseEntity<Map<String, Object>> handleDocumentNotResumable(DocumentNotResumableException ex) {
+        return buildErrorResponse("DOCUMENT_NOT_RESUMABLE", ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> fieldErrors = new HashMap<>();
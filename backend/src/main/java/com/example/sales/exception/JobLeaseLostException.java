@@ -0,0 +1,8 @@
+package com.example.sales.exception;
+
+public class JobLeaseLostException extends RuntimeException {
+
+    public JobLeaseLostException(Long jobId, String owner, int attempt) {
+        super(String.format("Worker %s no longer holds attempt %d of document job %d", owner, attempt, jobId));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.sales.model.dto;
+
+import com.example.sales.exception.CsvValidationException;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One line of the NDJSON analysis stream: a "deal" record per analyzed deal, then a "summary" or "error" trailer
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnalysisStreamRecord {
+    private String type;
+    private DealAnalysisResponse deal;
+    private List<FileInfo> files;
+    private AnalysisSummary summary;
+    private String message;
+    private List<CsvValidationException.RowError> rowErrors;
+
+    public static AnalysisStreamRecord deal(DealAnalysisResponse deal) {
+        return AnalysisStreamRecord.builder().type("deal").deal(deal).build();
+    }
+
+    public static AnalysisStreamRecord summary(AnalyzeResponse response) {
+        return AnalysisStreamRecord.builder()
+                .type("summary")
+                .files(response.getFiles())
+                .summary(response.getSummary())
+                .build();
+    }
+
+    public static AnalysisStreamRecord error(String message) {
+        return AnalysisStreamRecord.builder().type("error").message(message).build();
+    }
+
+    public static AnalysisStreamRecord error(CsvValidationException e) {
+        return AnalysisStreamRecord.builder().type("error").message(e.getMessage()).rowErrors(e.getRowErrors()).build();
+    }
+}
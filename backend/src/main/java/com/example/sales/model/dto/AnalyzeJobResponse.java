@@ -0,0 +1,27 @@
+package com.example.sales.model.dto;
+
+import com.example.sales.exception.CsvValidationException.RowError;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyzeJobResponse {
+    private String jobId;
+    private String status;
+    private Long rowsProcessed;
+    private Long rowsFailed;
+    private Long etaSeconds;
+    private List<RowError> rowErrors;
+    private String errorMessage;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,28 @@
+package com.example.sales.model.dto;
+
+import com.example.sales.model.enums.ProcessingStage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Chunking runs while pages are extracted, so EXTRACTING events carry both page and chunk counts
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DocumentProgressEvent {
+    private Long documentId;
+    private String fileName;
+    private ProcessingStage stage;
+    private Integer pagesExtracted;
+    private Integer totalPages;
+    private Integer chunksCreated;
+    private Integer chunksEmbedded;
+    private String message;
+    private LocalDateTime timestamp;
+}
@@ -21,4 +21,5 @@ public class DocumentResponse {
     private Long fileSize;
     private LocalDateTime createdAt;
     private String dealId;
+    private Long duplicateOfId;
 }
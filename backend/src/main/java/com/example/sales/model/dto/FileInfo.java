@@ -14,6 +14,7 @@ public class FileInfo {
     private String fileType;
     private Long fileSize;
     private String status;
+    private Double rowsPerSecond;
 
     public enum Status {
         PROCESSED, FAILED, SKIPPED
@@ -10,7 +10,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "deals")
+@Table(name = "deals", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_deals_user_deal_id", columnNames = {"user_id", "deal_id"})
+})
 @Getter
 @Setter
 @Builder
@@ -18,8 +20,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Deal {
 
+    // Pooled sequence ids let Hibernate batch inserts; allocationSize matches hibernate.jdbc.batch_size
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "deals_seq")
+    @SequenceGenerator(name = "deals_seq", sequenceName = "deals_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "deal_id", nullable = false)
@@ -75,6 +79,18 @@ public class Deal {
     @Column(name = "notes", columnDefinition = "TEXT")
     private String notes;
 
+    // SHA-256 over the normalized CSV fields, used to skip unchanged rows on re-import
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Serialized DealAnalysisResponse computed for contentHash
+    @Column(name = "analysis_result", columnDefinition = "TEXT")
+    private String analysisResult;
+
+    // Day analysisResult was scored; probabilities and action deadlines are relative to it
+    @Column(name = "analyzed_on")
+    private LocalDate analyzedOn;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
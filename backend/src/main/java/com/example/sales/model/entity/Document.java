@@ -8,7 +8,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+    @Index(name = "idx_document_user_content_hash", columnList = "user_id, content_hash")
+})
 @Getter
 @Setter
 @Builder
@@ -17,7 +19,8 @@ import java.time.LocalDateTime;
 public class Document {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_seq")
+    @SequenceGenerator(name = "documents_seq", sequenceName = "documents_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "file_name", nullable = false)
@@ -32,6 +35,10 @@ public class Document {
     @Column(name = "file_size", nullable = false)
     private Long fileSize;
 
+    // SHA-256 of the uploaded bytes, computed when the upload is classified
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "total_pages")
     private Integer totalPages;
 
@@ -49,6 +56,10 @@ public class Document {
     @Column(name = "error_message", columnDefinition = "TEXT")
     private String errorMessage;
 
+    // Checkpoint: extraction finished and every chunk is stored, so a resumed run only has embedding left
+    @Column(name = "chunks_persisted_at")
+    private LocalDateTime chunksPersistedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -57,6 +68,11 @@ public class Document {
     @JoinColumn(name = "deal_id")
     private Deal deal;
 
+    // Set when the upload duplicated an already processed document; chunks and vectors belong to that one
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "source_document_id")
+    private Document sourceDocument;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -2,6 +2,8 @@ package com.example.sales.model.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
@@ -15,8 +17,9 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class DocumentChunk {
+public class DocumentChunk implements Persistable<String> {
 
+    // Assigned UUIDv7 ids are time-ordered, so inserts append to the primary key index
     @Id
     private String id;
 
@@ -37,6 +40,9 @@ public class DocumentChunk {
     @Column(name = "page_number")
     private Integer pageNumber;
 
+    @Column(name = "page_end_number")
+    private Integer pageEndNumber;
+
     @Column(name = "start_offset")
     private Integer startOffset;
 
@@ -46,11 +52,33 @@ public class DocumentChunk {
     @Column(name = "token_count")
     private Integer tokenCount;
 
+    // Set by the vector outbox relay once the chunk's vector is stored; a resumed document requeues the rest
+    @Column(name = "embedded", nullable = false)
+    @ColumnDefault("false")
+    @Builder.Default
+    private boolean embedded = false;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Ids are assigned before save, so track newness to let saveAll persist without a SELECT per chunk
+    @Transient
+    @Builder.Default
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
     }
+
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        newEntity = false;
+    }
 }
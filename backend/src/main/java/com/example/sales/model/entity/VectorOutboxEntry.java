@@ -0,0 +1,57 @@
+package com.example.sales.model.entity;
+
+import com.example.sales.model.enums.VectorOutboxOperation;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// A pending vector store write, committed together with the document_chunks change it mirrors.
+// Delete entries outlive their chunk rows, so chunk and document are plain ids rather than associations.
+@Entity
+@Table(name = "vector_outbox", indexes = {
+    @Index(name = "idx_vector_outbox_available_at", columnList = "available_at"),
+    @Index(name = "idx_vector_outbox_document_id", columnList = "document_id")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vector_outbox_seq")
+    @SequenceGenerator(name = "vector_outbox_seq", sequenceName = "vector_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "chunk_id", nullable = false, length = 36)
+    private String chunkId;
+
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false)
+    private VectorOutboxOperation operation;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (availableAt == null) {
+            availableAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.sales.model.enums;
+
+public enum ProcessingStage {
+    QUEUED,
+    EXTRACTING,
+    EMBEDDING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
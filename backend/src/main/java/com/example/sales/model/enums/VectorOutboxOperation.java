@@ -0,0 +1,6 @@
+package com.example.sales.model.enums;
+
+public enum VectorOutboxOperation {
+    UPSERT,
+    DELETE
+}
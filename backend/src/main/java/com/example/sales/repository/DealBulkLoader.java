@@ -0,0 +1,210 @@
+package com.example.sales.repository;
+
+import com.example.sales.model.entity.Deal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class DealBulkLoader {
+
+    private static final String DEAL_COLUMNS =
+            "deal_id, company_name, contact_name, contact_email, contact_title, deal_stage, deal_value, " +
+            "product_interest, pain_points, competition, decision_maker, budget_status, sales_rep, region, " +
+            "last_contact, next_meeting, notes, content_hash, analysis_result, analyzed_on, user_id";
+
+    private static final String CREATE_STAGING_SQL = """
+            CREATE TEMP TABLE IF NOT EXISTS deals_staging (
+                seq BIGINT NOT NULL,
+                deal_id VARCHAR(255),
+                company_name VARCHAR(255),
+                contact_name VARCHAR(255),
+                contact_email VARCHAR(255),
+                contact_title VARCHAR(255),
+                deal_stage VARCHAR(255),
+                deal_value NUMERIC(19, 2),
+                product_interest VARCHAR(255),
+                pain_points TEXT,
+                competition VARCHAR(255),
+                decision_maker VARCHAR(255),
+                budget_status VARCHAR(255),
+                sales_rep VARCHAR(255),
+                region VARCHAR(255),
+                last_contact DATE,
+                next_meeting DATE,
+                notes TEXT,
+                content_hash VARCHAR(64),
+                analysis_result TEXT,
+                analyzed_on DATE,
+                user_id BIGINT
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_SQL =
+            "COPY deals_staging (seq, " + DEAL_COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+    // The last staged row per key wins, matching DealRepository.upsertAll
+    private static final String MERGE_SQL =
+            "INSERT INTO deals (id, " + DEAL_COLUMNS + ", created_at, updated_at) " +
+            "SELECT nextval('deals_seq'), latest.*, LOCALTIMESTAMP, LOCALTIMESTAMP FROM (" +
+            "SELECT DISTINCT ON (user_id, deal_id) " + DEAL_COLUMNS + " " +
+            "FROM deals_staging ORDER BY user_id, deal_id, seq DESC) latest " +
+            "ON CONFLICT (user_id, deal_id) DO UPDATE SET " +
+            "company_name = EXCLUDED.company_name, contact_name = EXCLUDED.contact_name, " +
+            "contact_email = EXCLUDED.contact_email, contact_title = EXCLUDED.contact_title, " +
+            "deal_stage = EXCLUDED.deal_stage, deal_value = EXCLUDED.deal_value, " +
+            "product_interest = EXCLUDED.product_interest, pain_points = EXCLUDED.pain_points, " +
+            "competition = EXCLUDED.competition, decision_maker = EXCLUDED.decision_maker, " +
+            "budget_status = EXCLUDED.budget_status, sales_rep = EXCLUDED.sales_rep, region = EXCLUDED.region, " +
+            "last_contact = EXCLUDED.last_contact, next_meeting = EXCLUDED.next_meeting, notes = EXCLUDED.notes, " +
+            "content_hash = EXCLUDED.content_hash, analysis_result = EXCLUDED.analysis_result, " +
+            "analyzed_on = EXCLUDED.analyzed_on, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Must be called inside a transaction; the staging table lives until it commits
+    public Session open() {
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            return new Session(connection, copyIn);
+        } catch (SQLException e) {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+            throw jdbcTemplate.getExceptionTranslator().translate("COPY deals_staging", COPY_SQL, e);
+        }
+    }
+
+    public class Session implements AutoCloseable {
+
+        private final Connection connection;
+        private final CopyIn copyIn;
+        private final long startNanos = System.nanoTime();
+        private long rowCount;
+        private boolean released;
+
+        private Session(Connection connection, CopyIn copyIn) {
+            this.connection = connection;
+            this.copyIn = copyIn;
+        }
+
+        public void copy(List<Deal> deals) {
+            StringBuilder csv = new StringBuilder(deals.size() * 256);
+            for (Deal deal : deals) {
+                appendRow(csv, ++rowCount, deal);
+            }
+            byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                throw jdbcTemplate.getExceptionTranslator().translate("COPY deals_staging", COPY_SQL, e);
+            }
+        }
+
+        public BulkLoadResult finish() {
+            try {
+                copyIn.endCopy();
+            } catch (SQLException e) {
+                throw jdbcTemplate.getExceptionTranslator().translate("COPY deals_staging", COPY_SQL, e);
+            } finally {
+                release();
+            }
+
+            int merged = jdbcTemplate.update(MERGE_SQL);
+            jdbcTemplate.execute("TRUNCATE deals_staging");
+
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            BulkLoadResult result = new BulkLoadResult(rowCount, merged, seconds);
+            log.info("Bulk loaded {} deal rows ({} merged) in {}s, {} rows/s",
+                    rowCount, merged, String.format("%.2f", seconds), Math.round(result.rowsPerSecond()));
+            return result;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            } catch (SQLException e) {
+                log.warn("Failed to cancel COPY into deals_staging", e);
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (!released) {
+                released = true;
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+
+        private void appendRow(StringBuilder csv, long seq, Deal deal) {
+            csv.append(seq);
+            appendField(csv, deal.getDealId());
+            appendField(csv, deal.getCompanyName());
+            appendField(csv, deal.getContactName());
+            appendField(csv, deal.getContactEmail());
+            appendField(csv, deal.getContactTitle());
+            appendField(csv, deal.getDealStage().name());
+            appendField(csv, deal.getDealValue());
+            appendField(csv, deal.getProductInterest());
+            appendField(csv, deal.getPainPoints());
+            appendField(csv, deal.getCompetition());
+            appendField(csv, deal.getDecisionMaker());
+            appendField(csv, deal.getBudgetStatus().name());
+            appendField(csv, deal.getSalesRep());
+            appendField(csv, deal.getRegion());
+            appendField(csv, deal.getLastContact());
+            appendField(csv, deal.getNextMeeting());
+            appendField(csv, deal.getNotes());
+            appendField(csv, deal.getContentHash());
+            appendField(csv, deal.getAnalysisResult());
+            appendField(csv, deal.getAnalyzedOn());
+            appendField(csv, deal.getUser().getId());
+            csv.append('\n');
+        }
+
+        // COPY csv reads an unquoted empty field as NULL, so every value is quoted
+        private void appendField(StringBuilder csv, Object value) {
+            csv.append(',');
+            if (value == null) {
+                return;
+            }
+            String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+            csv.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    csv.append('"');
+                }
+                csv.append(c);
+            }
+            csv.append('"');
+        }
+    }
+
+    public record BulkLoadResult(long rows, int mergedRows, double seconds) {
+
+        public double rowsPerSecond() {
+            return seconds > 0 ? rows / seconds : rows;
+        }
+    }
+}
@@ -8,11 +8,13 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DealRepository extends JpaRepository<Deal, Long> {
+public interface DealRepository extends JpaRepository<Deal, Long>, DealRepositoryCustom {
 
     List<Deal> findByUser(User user);
 
@@ -26,4 +28,18 @@ public interface DealRepository extends JpaRepository<Deal, Long> {
     }
 
     boolean existsByDealIdAndUser(String dealId, User user);
+
+    @Query("SELECT d.dealId AS dealId, d.contentHash AS contentHash, d.analysisResult AS analysisResult, " +
+           "d.analyzedOn AS analyzedOn FROM Deal d WHERE d.user = :user AND d.dealId IN :dealIds")
+    List<DealSnapshot> findSnapshots(@Param("user") User user, @Param("dealIds") Collection<String> dealIds);
+
+    interface DealSnapshot {
+        String getDealId();
+
+        String getContentHash();
+
+        String getAnalysisResult();
+
+        LocalDate getAnalyzedOn();
+    }
 }
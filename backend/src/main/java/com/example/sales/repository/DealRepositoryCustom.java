@@ -0,0 +1,10 @@
+package com.example.sales.repository;
+
+import com.example.sales.model.entity.Deal;
+
+import java.util.List;
+
+public interface DealRepositoryCustom {
+
+    int upsertAll(List<Deal> deals);
+}
@@ -0,0 +1,103 @@
+package com.example.sales.repository;
+
+import com.example.sales.model.entity.Deal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class DealRepositoryCustomImpl implements DealRepositoryCustom {
+
+    // Keeps each statement well below PostgreSQL's 65535 bind parameter limit
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private static final List<String> COLUMNS = List.of(
+            "deal_id", "company_name", "contact_name", "contact_email", "contact_title",
+            "deal_stage", "deal_value", "product_interest", "pain_points", "competition",
+            "decision_maker", "budget_status", "sales_rep", "region", "last_contact",
+            "next_meeting", "notes", "content_hash", "analysis_result", "analyzed_on", "user_id", "created_at",
+            "updated_at"
+    );
+
+    private static final String UPDATE_CLAUSE = buildUpdateClause();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int upsertAll(List<Deal> deals) {
+        // ON CONFLICT cannot update the same row twice in one statement, so the last row per key wins
+        Map<String, Deal> latestByKey = new LinkedHashMap<>();
+        for (Deal deal : deals) {
+            latestByKey.put(deal.getUser().getId() + ":" + deal.getDealId(), deal);
+        }
+        List<Deal> uniqueDeals = new ArrayList<>(latestByKey.values());
+
+        LocalDateTime now = LocalDateTime.now();
+        int affected = 0;
+        for (int from = 0; from < uniqueDeals.size(); from += ROWS_PER_STATEMENT) {
+            List<Deal> chunk = uniqueDeals.subList(from, Math.min(from + ROWS_PER_STATEMENT, uniqueDeals.size()));
+            affected += jdbcTemplate.update(buildUpsertSql(chunk.size()), ps -> bindRows(ps, chunk, now));
+        }
+        return affected;
+    }
+
+    private String buildUpsertSql(int rowCount) {
+        // Ids come from the same pooled sequence Hibernate allocates from
+        String placeholders = "(nextval('deals_seq'), " + String.join(", ", COLUMNS.stream().map(column -> "?").toList()) + ")";
+        StringBuilder sql = new StringBuilder("INSERT INTO deals (id, ")
+                .append(String.join(", ", COLUMNS))
+                .append(") VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(placeholders);
+        }
+        return sql.append(" ON CONFLICT (user_id, deal_id) DO UPDATE SET ").append(UPDATE_CLAUSE).toString();
+    }
+
+    private static String buildUpdateClause() {
+        // created_at keeps the original insert time
+        return String.join(", ", COLUMNS.stream()
+                .filter(column -> !column.equals("deal_id") && !column.equals("user_id") && !column.equals("created_at"))
+                .map(column -> column + " = EXCLUDED." + column)
+                .toList());
+    }
+
+    private void bindRows(PreparedStatement ps, List<Deal> deals, LocalDateTime now) throws SQLException {
+        int index = 1;
+        for (Deal deal : deals) {
+            ps.setString(index++, deal.getDealId());
+            ps.setString(index++, deal.getCompanyName());
+            ps.setString(index++, deal.getContactName());
+            ps.setString(index++, deal.getContactEmail());
+            ps.setObject(index++, deal.getContactTitle(), Types.VARCHAR);
+            ps.setString(index++, deal.getDealStage().name());
+            ps.setBigDecimal(index++, deal.getDealValue());
+            ps.setObject(index++, deal.getProductInterest(), Types.VARCHAR);
+            ps.setObject(index++, deal.getPainPoints(), Types.VARCHAR);
+            ps.setObject(index++, deal.getCompetition(), Types.VARCHAR);
+            ps.setObject(index++, deal.getDecisionMaker(), Types.VARCHAR);
+            ps.setString(index++, deal.getBudgetStatus().name());
+            ps.setObject(index++, deal.getSalesRep(), Types.VARCHAR);
+            ps.setObject(index++, deal.getRegion(), Types.VARCHAR);
+            ps.setObject(index++, deal.getLastContact(), Types.DATE);
+            ps.setObject(index++, deal.getNextMeeting(), Types.DATE);
+            ps.setObject(index++, deal.getNotes(), Types.VARCHAR);
+            ps.setObject(index++, deal.getContentHash(), Types.VARCHAR);
+            ps.setObject(index++, deal.getAnalysisResult(), Types.VARCHAR);
+            ps.setObject(index++, deal.getAnalyzedOn(), Types.DATE);
+            ps.setLong(index++, deal.getUser().getId());
+            ps.setObject(index++, now, Types.TIMESTAMP);
+            ps.setObject(index++, now, Types.TIMESTAMP);
+        }
+    }
+}
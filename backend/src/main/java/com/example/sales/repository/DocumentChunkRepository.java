@@ -4,10 +4,12 @@ import com.example.sales.model.entity.Document;
 import com.example.sales.model.entity.DocumentChunk;
 import com.example.sales.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -26,4 +28,19 @@ public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, St
     List<String> findChunkIdsByDocument(@Param("document") Document document);
 
     int countByDocument(Document document);
+
+    @Query("SELECT c.id FROM DocumentChunk c WHERE c.document = :document AND c.embedded = false")
+    List<String> findUnembeddedChunkIds(@Param("document") Document document);
+
+    @Query("SELECT c.id FROM DocumentChunk c WHERE c.id IN :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT c FROM DocumentChunk c JOIN FETCH c.document WHERE c.id IN :ids")
+    List<DocumentChunk> findWithDocumentByIdIn(@Param("ids") Collection<String> ids);
+
+    int countByDocumentIdAndEmbeddedTrue(Long documentId);
+
+    @Modifying
+    @Query("UPDATE DocumentChunk c SET c.embedded = true WHERE c.id IN :ids")
+    int markEmbedded(@Param("ids") Collection<String> ids);
 }
@@ -0,0 +1,59 @@
+package com.example.sales.repository;
+
+import com.example.sales.model.entity.Document;
+import com.example.sales.model.entity.DocumentJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DocumentJobRepository extends JpaRepository<DocumentJob, Long> {
+
+    // Rows locked by another node's claim are skipped rather than waited on, so workers never contend
+    @Query(value = """
+            SELECT * FROM document_jobs
+            WHERE (status = 'PENDING' AND available_at <= :now)
+               OR (status = 'PROCESSING' AND lease_expires_at < :now)
+            ORDER BY available_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<DocumentJob> lockClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM DocumentJob j WHERE j.id = :id")
+    Optional<DocumentJob> findByIdForUpdate(@Param("id") Long id);
+
+    // FOR SHARE keeps the row out of another node's claim (FOR UPDATE SKIP LOCKED) until the caller commits
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT j FROM DocumentJob j WHERE j.id = :id AND j.leaseOwner = :owner AND j.attempts = :attempts " +
+           "AND j.status = com.example.sales.model.enums.ProcessingStatus.PROCESSING")
+    Optional<DocumentJob> findHeldForShare(@Param("id") Long id,
+                                           @Param("owner") String owner,
+                                           @Param("attempts") int attempts);
+
+    @Modifying
+    @Query("UPDATE DocumentJob j SET j.leaseExpiresAt = :leaseExpiresAt " +
+           "WHERE j.id IN :ids AND j.leaseOwner = :owner " +
+           "AND j.status = com.example.sales.model.enums.ProcessingStatus.PROCESSING")
+    int renewLeases(@Param("ids") Collection<Long> ids,
+                    @Param("owner") String owner,
+                    @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    Optional<DocumentJob> findFirstByDocumentOrderByIdDesc(Document document);
+
+    // Pending covers jobs waiting out a retry backoff; processing covers running and lease-expired ones
+    @Query("SELECT DISTINCT j.contentHash FROM DocumentJob j WHERE j.contentHash IN :contentHashes " +
+           "AND j.status IN (com.example.sales.model.enums.ProcessingStatus.PENDING, " +
+           "com.example.sales.model.enums.ProcessingStatus.PROCESSING)")
+    List<String> findUnfinishedContentHashes(@Param("contentHashes") Collection<String> contentHashes);
+}
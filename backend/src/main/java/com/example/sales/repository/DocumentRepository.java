@@ -4,10 +4,14 @@ import com.example.sales.model.entity.Document;
 import com.example.sales.model.entity.User;
 import com.example.sales.model.enums.ProcessingStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,4 +28,41 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     List<Document> findByUserAndDealId(@Param("user") User user, @Param("dealId") String dealId);
 
     boolean existsByFileNameAndUser(String fileName, User user);
+
+    // Original (non-alias) documents with these bytes that finished processing, oldest first
+    @Query("SELECT d FROM Document d WHERE d.user = :user AND d.contentHash = :contentHash " +
+           "AND d.processingStatus = com.example.sales.model.enums.ProcessingStatus.COMPLETED " +
+           "AND d.sourceDocument IS NULL ORDER BY d.id")
+    List<Document> findProcessedByContentHash(@Param("user") User user, @Param("contentHash") String contentHash);
+
+    // Sets the checkpoint without touching the status, which the outbox relay may have changed meanwhile
+    @Transactional
+    @Modifying
+    @Query("UPDATE Document d SET d.totalPages = :totalPages, d.totalChunks = :totalChunks, " +
+           "d.chunksPersistedAt = :now, d.updatedAt = :now WHERE d.id = :id")
+    int markChunksPersisted(@Param("id") Long id,
+                            @Param("totalPages") Integer totalPages,
+                            @Param("totalChunks") Integer totalChunks,
+                            @Param("now") LocalDateTime now);
+
+    // Completes a document once all its chunks are stored and none of its vector writes are pending
+    @Modifying
+    @Query("UPDATE Document d SET d.processingStatus = com.example.sales.model.enums.ProcessingStatus.COMPLETED, " +
+           "d.updatedAt = :now WHERE d.id = :id " +
+           "AND d.processingStatus = com.example.sales.model.enums.ProcessingStatus.PROCESSING " +
+           "AND d.chunksPersistedAt IS NOT NULL " +
+           "AND NOT EXISTS (SELECT e.id FROM VectorOutboxEntry e WHERE e.documentId = d.id)")
+    int completeIfDrained(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Query("SELECT d FROM Document d WHERE d.user = :user AND d.contentHash IN :contentHashes " +
+           "AND d.processingStatus = com.example.sales.model.enums.ProcessingStatus.COMPLETED " +
+           "AND d.sourceDocument IS NULL ORDER BY d.id")
+    List<Document> findProcessedByContentHashIn(@Param("user") User user,
+                                                @Param("contentHashes") Collection<String> contentHashes);
+
+    // Failed documents without a chunk checkpoint can only be resumed by extracting the spooled upload again
+    @Query("SELECT DISTINCT d.contentHash FROM Document d WHERE d.contentHash IN :contentHashes " +
+           "AND d.processingStatus = com.example.sales.model.enums.ProcessingStatus.FAILED " +
+           "AND d.chunksPersistedAt IS NULL")
+    List<String> findResumableContentHashes(@Param("contentHashes") Collection<String> contentHashes);
 }
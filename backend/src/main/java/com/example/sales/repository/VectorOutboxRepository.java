@@ -0,0 +1,37 @@
+package com.example.sales.repository;
+
+import com.example.sales.model.entity.VectorOutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VectorOutboxRepository extends JpaRepository<VectorOutboxEntry, Long> {
+
+    // Entries that used up their attempts stay parked until their document is resumed
+    @Query(value = """
+            SELECT * FROM vector_outbox
+            WHERE available_at <= :now AND attempts < :maxAttempts
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<VectorOutboxEntry> lockPending(@Param("now") LocalDateTime now,
+                                        @Param("maxAttempts") int maxAttempts,
+                                        @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM VectorOutboxEntry e WHERE e.documentId = :documentId " +
+           "AND e.operation = com.example.sales.model.enums.VectorOutboxOperation.UPSERT")
+    int deleteUpserts(@Param("documentId") Long documentId);
+
+    @Modifying
+    @Query("UPDATE VectorOutboxEntry e SET e.attempts = 0, e.availableAt = :now, e.lastError = NULL " +
+           "WHERE e.documentId = :documentId")
+    int resetAttempts(@Param("documentId") Long documentId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,159 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.CsvValidationException.RowError;
+import com.example.sales.model.dto.AnalyzeResponse;
+import com.example.sales.model.enums.ProcessingStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Getter
+@Slf4j
+public class AnalyzeJob {
+
+    // Only the first row errors are kept for the status endpoint; the count covers all of them
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long userId;
+    private final List<SpooledCsv> files;
+    private final long totalBytes;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private volatile ProcessingStatus status = ProcessingStatus.PENDING;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile String errorMessage;
+    private volatile AnalyzeResponse result;
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rowsProcessed = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rowsFailed = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong bytesRead = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final List<RowError> rowErrors = new ArrayList<>();
+
+    public AnalyzeJob(Long userId, List<SpooledCsv> files) {
+        this.userId = userId;
+        this.files = List.copyOf(files);
+        this.totalBytes = files.stream().mapToLong(SpooledCsv::size).sum();
+    }
+
+    public void markStarted() {
+        startedAt = LocalDateTime.now();
+        status = ProcessingStatus.PROCESSING;
+    }
+
+    public void recordProcessed(int rows) {
+        rowsProcessed.addAndGet(rows);
+    }
+
+    public void recordFailed(List<RowError> errors) {
+        rowsFailed.addAndGet(errors.size());
+        synchronized (rowErrors) {
+            for (RowError error : errors) {
+                if (rowErrors.size() >= MAX_REPORTED_ERRORS) {
+                    break;
+                }
+                rowErrors.add(error);
+            }
+        }
+    }
+
+    public void complete(AnalyzeResponse response) {
+        result = response;
+        completedAt = LocalDateTime.now();
+        status = ProcessingStatus.COMPLETED;
+    }
+
+    public void fail(String message) {
+        errorMessage = message;
+        completedAt = LocalDateTime.now();
+        status = ProcessingStatus.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == ProcessingStatus.COMPLETED || status == ProcessingStatus.FAILED;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed.get();
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed.get();
+    }
+
+    public List<RowError> getRowErrors() {
+        synchronized (rowErrors) {
+            return List.copyOf(rowErrors);
+        }
+    }
+
+    // Extrapolated from the share of spooled bytes consumed so far; null until there is enough to go on
+    public Long getEtaSeconds() {
+        if (status != ProcessingStatus.PROCESSING || startedAt == null) {
+            return null;
+        }
+        long read = bytesRead.get();
+        if (read == 0 || totalBytes == 0) {
+            return null;
+        }
+        long elapsedMillis = Duration.between(startedAt, LocalDateTime.now()).toMillis();
+        long remainingMillis = elapsedMillis * Math.max(totalBytes - read, 0) / read;
+        return Math.round(remainingMillis / 1000.0);
+    }
+
+    public InputStream track(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    bytesRead.addAndGet(count);
+                }
+                return count;
+            }
+        };
+    }
+
+    public void deleteSpooledFiles() {
+        for (SpooledCsv file : files) {
+            file.delete();
+        }
+    }
+
+    public record SpooledCsv(String fileName, Path path, long size) {
+
+        void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Failed to delete spooled upload: {}", path, e);
+            }
+        }
+    }
+}
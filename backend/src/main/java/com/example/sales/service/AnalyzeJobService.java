@@ -0,0 +1,108 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.AnalyzeJobNotFoundException;
+import com.example.sales.model.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Jobs and their results are held in memory on the node that accepted the upload, so they do not survive a
+// restart and are only visible through that node. Deployments with more than one node need sticky routing
+// for /api/v1/sales/analyze/jobs or should use the synchronous and streaming analyze endpoints.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyzeJobService {
+
+    private final FileService fileService;
+    private final SalesService salesService;
+
+    private final Map<String, AnalyzeJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${sales.import.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+
+    // Finished jobs keep every analyzed deal, so only the most recent ones are retained
+    @Value("${sales.import.max-retained-jobs:50}")
+    private int maxRetainedJobs = 50;
+
+    public AnalyzeJob submit(List<MultipartFile> files, User user) {
+        evictFinishedJobs();
+
+        // The multipart temp files are gone once the request returns, so the job works from its own copies
+        List<AnalyzeJob.SpooledCsv> spooled = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                UploadDescriptor upload = fileService.describe(file);
+                fileService.validate(upload);
+                if (!upload.isCsv()) {
+                    throw new IllegalArgumentException("Only CSV files are supported for analyze jobs");
+                }
+
+                Path path = Files.createTempFile("analyze-job-", ".csv");
+                spooled.add(new AnalyzeJob.SpooledCsv(upload.fileName(), path, upload.size()));
+                try (InputStream input = file.getInputStream()) {
+                    Files.copy(input, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            spooled.forEach(AnalyzeJob.SpooledCsv::delete);
+            throw new UncheckedIOException("Failed to spool upload for analyze job", e);
+        } catch (RuntimeException e) {
+            spooled.forEach(AnalyzeJob.SpooledCsv::delete);
+            throw e;
+        }
+
+        AnalyzeJob job = new AnalyzeJob(user.getId(), spooled);
+        jobs.put(job.getId(), job);
+        try {
+            salesService.runAnalyzeJob(job, user);
+        } catch (RuntimeException e) {
+            // Rejected by the executor
+            jobs.remove(job.getId());
+            job.deleteSpooledFiles();
+            throw e;
+        }
+
+        log.info("Submitted analyze job {} with {} file(s) for user {}", job.getId(), spooled.size(), user.getEmail());
+        return job;
+    }
+
+    public AnalyzeJob getJob(String jobId, User user) {
+        AnalyzeJob job = jobs.get(jobId);
+        if (job == null || !job.getUserId().equals(user.getId())) {
+            throw new AnalyzeJobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${sales.import.job-purge-interval-ms:60000}")
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getCompletedAt().isBefore(cutoff));
+
+        List<AnalyzeJob> finished = jobs.values().stream()
+                .filter(AnalyzeJob::isFinished)
+                .sorted(Comparator.comparing(AnalyzeJob::getCompletedAt).reversed())
+                .toList();
+        for (AnalyzeJob job : finished.subList(Math.min(maxRetainedJobs, finished.size()), finished.size())) {
+            jobs.remove(job.getId());
+        }
+    }
+}
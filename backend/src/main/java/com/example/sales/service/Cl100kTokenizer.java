@@ -0,0 +1,59 @@
+package com.example.sales.service;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.knuddels.jtokkit.api.IntArrayList;
+import org.springframework.stereotype.Component;
+
+// cl100k_base, the encoding of the OpenAI embedding models. The BPE ranks ship inside jtokkit and are
+// loaded once per instance on first use; the encoding is thread-safe. Text is encoded as ordinary text,
+// so a literal "<|endoftext|>" in a document counts as plain characters instead of failing.
+@Component
+public class Cl100kTokenizer {
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+    // The char offset where each token of text ends. cl100k often splits a Hangul syllable (three UTF-8
+    // bytes) across tokens; a token ending inside a character is taken to end before it.
+    public int[] tokenEnds(String text) {
+        IntArrayList tokens = encoding.encodeOrdinary(text);
+        int[] ends = new int[tokens.size()];
+        IntArrayList token = new IntArrayList(1);
+        int tokenBytes = 0;
+        int chars = 0;
+        int charBytes = 0;
+
+        for (int i = 0; i < ends.length; i++) {
+            token.clear();
+            token.add(tokens.get(i));
+            tokenBytes += encoding.decodeBytes(token).length;
+            while (chars < text.length()) {
+                int width = utf8Width(text, chars);
+                if (charBytes + width > tokenBytes) {
+                    break;
+                }
+                charBytes += width;
+                chars += width == 4 ? 2 : 1;
+            }
+            ends[i] = chars;
+        }
+        return ends;
+    }
+
+    // A lone surrogate is encoded as '?', like String.getBytes does
+    private int utf8Width(String text, int index) {
+        char c = text.charAt(index);
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800) {
+            return 2;
+        }
+        if (Character.isHighSurrogate(c) && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1))) {
+            return 4;
+        }
+        return Character.isSurrogate(c) ? 1 : 3;
+    }
+}
@@ -6,239 +6,182 @@ import com.example.sales.exception.CsvValidationException.RowError;
 import com.example.sales.model.dto.CsvDealRow;
 import com.example.sales.model.entity.Deal;
 import com.example.sales.model.entity.User;
-import com.example.sales.model.enums.BudgetStatus;
-import com.example.sales.model.enums.DealStage;
-import com.opencsv.bean.CsvToBean;
-import com.opencsv.bean.CsvToBeanBuilder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
-import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 public class CsvParsingService {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private final DealRowDecoder rowDecoder = new DealRowDecoder();
+
+    // Below sales.import.batch-size so that streamed batches, the production path, map in parallel
+    @Value("${sales.import.parallel-threshold:256}")
+    private int parallelThreshold = 256;
 
     public List<Deal> parseCsvFile(MultipartFile file, User user) {
         List<CsvDealRow> rows = parseRows(file);
         return mapAndValidateRows(rows, user);
     }
 
-    private List<CsvDealRow> parseRows(MultipartFile file) {
-        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
-            CsvToBean<CsvDealRow> csvToBean = new CsvToBeanBuilder<CsvDealRow>(reader)
-                    .withType(CsvDealRow.class)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .withIgnoreEmptyLine(true)
-                    .build();
-
-            return csvToBean.parse();
-        } catch (Exception e) {
+    public int streamCsvFile(MultipartFile file, User user, int batchSize, Consumer<List<Deal>> batchConsumer) {
+        List<RowError> errors = new ArrayList<>();
+        AtomicInteger dealCount = new AtomicInteger();
+
+        InputStream input;
+        try {
+            input = file.getInputStream();
+        } catch (IOException e) {
             log.error("Failed to parse CSV file: {}", file.getOriginalFilename(), e);
             throw new CsvParsingException("Failed to parse CSV file: " + e.getMessage(), e);
         }
-    }
-
-    private List<Deal> mapAndValidateRows(List<CsvDealRow> rows, User user) {
-        List<Deal> deals = new ArrayList<>();
-        List<RowError> errors = new ArrayList<>();
-
-        for (int i = 0; i < rows.size(); i++) {
-            int rowNumber = i + 2; // +2 because row 1 is header, and index starts at 0
-            CsvDealRow row = rows.get(i);
-
-            Map<String, String> fieldErrors = validateRow(row);
-            if (!fieldErrors.isEmpty()) {
-                errors.add(new RowError(rowNumber, fieldErrors));
-                continue;
-            }
 
-            try {
-                Deal deal = mapRowToDeal(row, user);
-                deals.add(deal);
-            } catch (Exception e) {
-                log.error("Failed to map row {} to Deal", rowNumber, e);
-                errors.add(new RowError(rowNumber, Map.of("mapping", e.getMessage())));
+        streamCsv(input, file.getOriginalFilename(), user, batchSize, deals -> {
+            // Once a row has failed the import is rejected, so only keep validating for the error report
+            if (errors.isEmpty()) {
+                batchConsumer.accept(deals);
+                dealCount.addAndGet(deals.size());
             }
-        }
+        }, errors::addAll);
 
         if (!errors.isEmpty()) {
             throw new CsvValidationException(errors);
         }
 
-        return deals;
+        log.info("Streamed {} deals from {}", dealCount.get(), file.getOriginalFilename());
+        return dealCount.get();
     }
 
-    private Map<String, String> validateRow(CsvDealRow row) {
-        Map<String, String> errors = new LinkedHashMap<>();
-
-        // Required fields validation
-        if (isBlank(row.getDealId())) {
-            errors.put("Deal_ID", "Deal ID is required");
-        }
-        if (isBlank(row.getCompanyName())) {
-            errors.put("Company_Name", "Company Name is required");
-        }
-        if (isBlank(row.getContactName())) {
-            errors.put("Contact_Name", "Contact Name is required");
-        }
-        if (isBlank(row.getContactEmail())) {
-            errors.put("Contact_Email", "Contact Email is required");
-        }
-        if (isBlank(row.getDealStage())) {
-            errors.put("Deal_Stage", "Deal Stage is required");
-        } else if (!isValidDealStage(row.getDealStage())) {
-            errors.put("Deal_Stage", "Invalid Deal Stage: " + row.getDealStage() +
-                    ". Valid values: " + Arrays.toString(DealStage.values()));
-        }
-        if (isBlank(row.getDealValue())) {
-            errors.put("Deal_Value", "Deal Value is required");
-        } else if (!isValidNumber(row.getDealValue())) {
-            errors.put("Deal_Value", "Deal Value must be a valid number");
+    // Reads the whole file without handing out any deal, for callers that commit batches as they go
+    public void validateCsvFile(MultipartFile file, User user, int batchSize) {
+        List<RowError> errors = new ArrayList<>();
+        try (InputStream input = file.getInputStream()) {
+            streamCsv(input, file.getOriginalFilename(), user, batchSize, deals -> {}, errors::addAll);
+        } catch (IOException e) {
+            log.error("Failed to parse CSV file: {}", file.getOriginalFilename(), e);
+            throw new CsvParsingException("Failed to parse CSV file: " + e.getMessage(), e);
         }
-        if (isBlank(row.getBudgetStatus())) {
-            errors.put("Budget_Status", "Budget Status is required");
-        } else if (!isValidBudgetStatus(row.getBudgetStatus())) {
-            errors.put("Budget_Status", "Invalid Budget Status: " + row.getBudgetStatus() +
-                    ". Valid values: " + Arrays.toString(BudgetStatus.values()));
+        if (!errors.isEmpty()) {
+            throw new CsvValidationException(errors);
         }
+    }
 
-        // Date validation for optional fields
-        if (!isBlank(row.getLastContact()) && !isValidDate(row.getLastContact())) {
-            errors.put("Last_Contact", "Invalid date format. Expected: yyyy-MM-dd");
-        }
-        if (!isBlank(row.getNextMeeting()) && !isValidDate(row.getNextMeeting())) {
-            errors.put("Next_Meeting", "Invalid date format. Expected: yyyy-MM-dd");
-        }
+    // Hands every batch's row errors to errorConsumer before its valid deals reach batchConsumer
+    public void streamCsv(InputStream input, String fileName, User user, int batchSize,
+                          Consumer<List<Deal>> batchConsumer, Consumer<List<RowError>> errorConsumer) {
+        List<CsvDealRow> rows = new ArrayList<>(batchSize); // holders are reused for every batch
+        int firstRowNumber = 2; // row 1 is header
 
-        return errors;
-    }
+        try (DealCsvReader reader = openReader(input)) {
+            int rowCount;
+            while ((rowCount = readBatch(reader, rows, batchSize)) > 0) {
+                MappedRows mapped = mapAndValidate(rows, rowCount, firstRowNumber, user);
+                firstRowNumber += rowCount;
 
-    private Deal mapRowToDeal(CsvDealRow row, User user) {
-        return Deal.builder()
-                .dealId(row.getDealId().trim())
-                .companyName(row.getCompanyName().trim())
-                .contactName(row.getContactName().trim())
-                .contactEmail(row.getContactEmail().trim())
-                .contactTitle(trimOrNull(row.getContactTitle()))
-                .dealStage(parseDealStage(row.getDealStage()))
-                .dealValue(new BigDecimal(row.getDealValue().trim().replaceAll("[^\\d.]", "")))
-                .productInterest(trimOrNull(row.getProductInterest()))
-                .painPoints(trimOrNull(row.getPainPoints()))
-                .competition(trimOrNull(row.getCompetition()))
-                .decisionMaker(trimOrNull(row.getDecisionMaker()))
-                .budgetStatus(parseBudgetStatus(row.getBudgetStatus()))
-                .salesRep(trimOrNull(row.getSalesRep()))
-                .region(trimOrNull(row.getRegion()))
-                .lastContact(parseDate(row.getLastContact()))
-                .nextMeeting(parseDate(row.getNextMeeting()))
-                .notes(trimOrNull(row.getNotes()))
-                .user(user)
-                .build();
+                if (!mapped.errors().isEmpty()) {
+                    errorConsumer.accept(mapped.errors());
+                }
+                if (!mapped.deals().isEmpty()) {
+                    batchConsumer.accept(mapped.deals());
+                }
+            }
+        } catch (IOException | CsvParsingException e) {
+            log.error("Failed to parse CSV file: {}", fileName, e);
+            throw new CsvParsingException("Failed to parse CSV file: " + e.getMessage(), e);
+        }
     }
 
-    private boolean isBlank(String value) {
-        return value == null || value.trim().isEmpty();
+    private int readBatch(DealCsvReader reader, List<CsvDealRow> rows, int batchSize) throws IOException {
+        int count = 0;
+        while (count < batchSize) {
+            if (count == rows.size()) {
+                rows.add(new CsvDealRow());
+            }
+            if (!reader.next(rows.get(count))) {
+                break;
+            }
+            count++;
+        }
+        return count;
     }
 
-    private String trimOrNull(String value) {
-        return isBlank(value) ? null : value.trim();
+    private List<CsvDealRow> parseRows(MultipartFile file) {
+        try (DealCsvReader reader = openReader(file.getInputStream())) {
+            List<CsvDealRow> rows = new ArrayList<>();
+            CsvDealRow row = new CsvDealRow();
+            while (reader.next(row)) {
+                rows.add(row);
+                row = new CsvDealRow();
+            }
+            return rows;
+        } catch (Exception e) {
+            log.error("Failed to parse CSV file: {}", file.getOriginalFilename(), e);
+            throw new CsvParsingException("Failed to parse CSV file: " + e.getMessage(), e);
+        }
     }
 
-    private boolean isValidDealStage(String value) {
-        return parseDealStageOrNull(value) != null;
+    private DealCsvReader openReader(InputStream input) {
+        return new DealCsvReader(new InputStreamReader(input, StandardCharsets.UTF_8));
     }
 
-    private boolean isValidBudgetStatus(String value) {
-        return parseBudgetStatusOrNull(value) != null;
-    }
+    private List<Deal> mapAndValidateRows(List<CsvDealRow> rows, User user) {
+        // Row 1 is header, so the first data row is row 2
+        MappedRows mapped = mapAndValidate(rows, rows.size(), 2, user);
 
-    private boolean isValidNumber(String value) {
-        try {
-            new BigDecimal(value.trim().replaceAll("[^\\d.]", ""));
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+        if (!mapped.errors().isEmpty()) {
+            throw new CsvValidationException(mapped.errors());
         }
-    }
 
-    private boolean isValidDate(String value) {
-        try {
-            LocalDate.parse(value.trim(), DATE_FORMATTER);
-            return true;
-        } catch (DateTimeParseException e) {
-            return false;
-        }
+        return mapped.deals();
     }
 
-    private DealStage parseDealStage(String value) {
-        DealStage stage = parseDealStageOrNull(value);
-        if (stage == null) {
-            throw new IllegalArgumentException("Invalid deal stage: " + value);
+    private MappedRows mapAndValidate(List<CsvDealRow> rows, int rowCount, int firstRowNumber, User user) {
+        List<RowResult> results;
+        if (rowCount >= parallelThreshold) {
+            // Rows are independent; the ordered stream keeps results in file order
+            results = IntStream.range(0, rowCount)
+                    .parallel()
+                    .mapToObj(i -> validateAndMap(rows.get(i), firstRowNumber + i, user))
+                    .toList();
+        } else {
+            results = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                results.add(validateAndMap(rows.get(i), firstRowNumber + i, user));
+            }
         }
-        return stage;
-    }
 
-    private DealStage parseDealStageOrNull(String value) {
-        if (isBlank(value)) {
-            return null;
-        }
-        String normalized = value.trim().toUpperCase().replace(" ", "_");
-        try {
-            return DealStage.valueOf(normalized);
-        } catch (IllegalArgumentException e) {
-            // Try fuzzy matching for common variations
-            return switch (normalized) {
-                case "CLOSED-WON", "CLOSEDWON", "WON" -> DealStage.CLOSED_WON;
-                case "CLOSED-LOST", "CLOSEDLOST", "LOST" -> DealStage.CLOSED_LOST;
-                default -> null;
-            };
+        List<Deal> deals = new ArrayList<>(rowCount);
+        List<RowError> errors = new ArrayList<>();
+        for (RowResult result : results) {
+            if (result.error() != null) {
+                errors.add(result.error());
+            } else {
+                deals.add(result.deal());
+            }
         }
+        return new MappedRows(deals, errors);
     }
 
-    private BudgetStatus parseBudgetStatus(String value) {
-        BudgetStatus status = parseBudgetStatusOrNull(value);
-        if (status == null) {
-            throw new IllegalArgumentException("Invalid budget status: " + value);
+    private RowResult validateAndMap(CsvDealRow row, int rowNumber, User user) {
+        DealRowDecoder.DecodedRow decoded = rowDecoder.decode(row, user);
+        if (!decoded.isValid()) {
+            return new RowResult(null, new RowError(rowNumber, decoded.fieldErrors()));
         }
-        return status;
+        return new RowResult(decoded.deal(), null);
     }
 
-    private BudgetStatus parseBudgetStatusOrNull(String value) {
-        if (isBlank(value)) {
-            return null;
-        }
-        String normalized = value.trim().toUpperCase().replace(" ", "_");
-        try {
-            return BudgetStatus.valueOf(normalized);
-        } catch (IllegalArgumentException e) {
-            // Try fuzzy matching for common variations
-            return switch (normalized) {
-                case "UNDER-REVIEW", "UNDERREVIEW", "PENDING", "REVIEW" -> BudgetStatus.UNDER_REVIEW;
-                case "NOT-CONFIRMED", "NOTCONFIRMED", "UNCONFIRMED" -> BudgetStatus.NOT_CONFIRMED;
-                default -> null;
-            };
-        }
-    }
+    private record RowResult(Deal deal, RowError error) {}
 
-    private LocalDate parseDate(String value) {
-        if (isBlank(value)) {
-            return null;
-        }
-        try {
-            return LocalDate.parse(value.trim(), DATE_FORMATTER);
-        } catch (DateTimeParseException e) {
-            return null;
-        }
-    }
+    private record MappedRows(List<Deal> deals, List<RowError> errors) {}
 }
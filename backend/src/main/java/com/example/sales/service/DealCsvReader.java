@@ -0,0 +1,256 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.CsvParsingException;
+import com.example.sales.model.dto.CsvDealRow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+public class DealCsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+    private static final char BOM = '\uFEFF';
+
+    private static final Map<String, Column> COLUMNS_BY_HEADER = new HashMap<>();
+
+    static {
+        for (Column column : Column.values()) {
+            COLUMNS_BY_HEADER.put(column.header.toUpperCase(Locale.ROOT), column);
+        }
+    }
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private char[] field = new char[256];
+    private int fieldLength;
+
+    private List<String> headers;
+    private Column[] columnsByIndex;
+    private int lineNumber = 1;
+
+    public DealCsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public boolean next(CsvDealRow row) throws IOException {
+        if (columnsByIndex == null) {
+            readHeader();
+        }
+
+        while (true) {
+            int recordLine = lineNumber;
+            int fieldCount = readRecord(row);
+            if (fieldCount < 0) {
+                return false;
+            }
+            if (fieldCount == 0) {
+                continue; // empty line
+            }
+            if (fieldCount != columnsByIndex.length) {
+                throw new CsvParsingException(String.format(
+                        "Number of data fields (%d) does not match number of headers (%d) at line %d",
+                        fieldCount, columnsByIndex.length, recordLine));
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readHeader() throws IOException {
+        if (peek() == BOM) {
+            read();
+        }
+
+        headers = new ArrayList<>();
+        int fieldCount;
+        do {
+            fieldCount = readRecord(null);
+        } while (fieldCount == 0);
+
+        if (fieldCount < 0) {
+            throw new CsvParsingException("CSV file is empty, expected a header row");
+        }
+
+        columnsByIndex = new Column[headers.size()];
+        boolean[] seen = new boolean[Column.values().length];
+        for (int i = 0; i < headers.size(); i++) {
+            Column column = COLUMNS_BY_HEADER.get(headers.get(i).trim().toUpperCase(Locale.ROOT));
+            // Unknown and duplicate columns are read but not bound
+            if (column != null && !seen[column.ordinal()]) {
+                seen[column.ordinal()] = true;
+                columnsByIndex[i] = column;
+            }
+        }
+        headers = null;
+    }
+
+    // Returns the number of fields read, 0 for an empty line and -1 at end of input
+    private int readRecord(CsvDealRow row) throws IOException {
+        int first = peek();
+        if (first < 0) {
+            return -1;
+        }
+        if (first == '\n' || first == '\r') {
+            read();
+            endLine(first);
+            return 0;
+        }
+
+        int fieldIndex = 0;
+        while (true) {
+            int c = readField();
+            emitField(row, fieldIndex++);
+            if (c == SEPARATOR) {
+                continue;
+            }
+            endLine(c);
+            return fieldIndex;
+        }
+    }
+
+    // Reads one field into the field buffer and returns the character that terminated it
+    private int readField() throws IOException {
+        fieldLength = 0;
+
+        int c = read();
+        // Whitespace before an opening quote is ignored
+        while (c == ' ' || c == '\t') {
+            append((char) c);
+            c = read();
+        }
+
+        if (c == QUOTE) {
+            fieldLength = 0;
+            c = readQuoted();
+        }
+
+        while (c >= 0 && c != SEPARATOR && c != '\n' && c != '\r') {
+            append((char) c);
+            c = read();
+        }
+        return c;
+    }
+
+    // Reads a quoted section and returns the character after the closing quote
+    private int readQuoted() throws IOException {
+        int startLine = lineNumber;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw new CsvParsingException("Unterminated quoted field starting at line " + startLine);
+            }
+            if (c == QUOTE) {
+                if (peek() != QUOTE) {
+                    return read();
+                }
+                c = read();
+            } else if (c == ESCAPE && (peek() == QUOTE || peek() == ESCAPE)) {
+                c = read();
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                c = '\n';
+                lineNumber++;
+            } else if (c == '\n') {
+                lineNumber++;
+            }
+            append((char) c);
+        }
+    }
+
+    private void endLine(int terminator) throws IOException {
+        if (terminator == '\r' && peek() == '\n') {
+            read();
+        }
+        if (terminator >= 0) {
+            lineNumber++;
+        }
+    }
+
+    private void emitField(CsvDealRow row, int fieldIndex) {
+        if (columnsByIndex == null) {
+            headers.add(new String(field, 0, fieldLength));
+            return;
+        }
+        Column column = fieldIndex < columnsByIndex.length ? columnsByIndex[fieldIndex] : null;
+        // An empty cell binds as "" like CsvToBean did; only columns missing from the header stay null
+        if (column != null) {
+            column.setter.accept(row, new String(field, 0, fieldLength));
+        }
+    }
+
+    private void append(char c) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = c;
+    }
+
+    private int read() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private enum Column {
+        DEAL_ID("Deal_ID", CsvDealRow::setDealId),
+        COMPANY_NAME("Company_Name", CsvDealRow::setCompanyName),
+        CONTACT_NAME("Contact_Name", CsvDealRow::setContactName),
+        CONTACT_EMAIL("Contact_Email", CsvDealRow::setContactEmail),
+        CONTACT_TITLE("Contact_Title", CsvDealRow::setContactTitle),
+        DEAL_STAGE("Deal_Stage", CsvDealRow::setDealStage),
+        DEAL_VALUE("Deal_Value", CsvDealRow::setDealValue),
+        PRODUCT_INTEREST("Product_Interest", CsvDealRow::setProductInterest),
+        PAIN_POINTS("Pain_Points", CsvDealRow::setPainPoints),
+        COMPETITION("Competition", CsvDealRow::setCompetition),
+        DECISION_MAKER("Decision_Maker", CsvDealRow::setDecisionMaker),
+        BUDGET_STATUS("Budget_Status", CsvDealRow::setBudgetStatus),
+        SALES_REP("Sales_Rep", CsvDealRow::setSalesRep),
+        REGION("Region", CsvDealRow::setRegion),
+        LAST_CONTACT("Last_Contact", CsvDealRow::setLastContact),
+        NEXT_MEETING("Next_Meeting", CsvDealRow::setNextMeeting),
+        NOTES("Notes", CsvDealRow::setNotes);
+
+        private final String header;
+        private final BiConsumer<CsvDealRow, String> setter;
+
+        Column(String header, BiConsumer<CsvDealRow, String> setter) {
+            this.header = header;
+            this.setter = setter;
+        }
+    }
+}
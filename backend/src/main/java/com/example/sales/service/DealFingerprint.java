@@ -0,0 +1,64 @@
+package com.example.sales.service;
+
+import com.example.sales.model.entity.Deal;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class DealFingerprint {
+
+    private static final char FIELD_SEPARATOR = '\u001F';
+    private static final char NULL_MARKER = '\u0000';
+
+    private DealFingerprint() {
+    }
+
+    // Hashes the decoded (trimmed, alias-resolved) fields so formatting-only changes in the CSV keep the same hash
+    public static String of(Deal deal) {
+        StringBuilder canonical = new StringBuilder(256);
+        append(canonical, deal.getDealId());
+        append(canonical, deal.getCompanyName());
+        append(canonical, deal.getContactName());
+        append(canonical, deal.getContactEmail());
+        append(canonical, deal.getContactTitle());
+        append(canonical, deal.getDealStage() == null ? null : deal.getDealStage().name());
+        append(canonical, decimal(deal.getDealValue()));
+        append(canonical, deal.getProductInterest());
+        append(canonical, deal.getPainPoints());
+        append(canonical, deal.getCompetition());
+        append(canonical, deal.getDecisionMaker());
+        append(canonical, deal.getBudgetStatus() == null ? null : deal.getBudgetStatus().name());
+        append(canonical, deal.getSalesRep());
+        append(canonical, deal.getRegion());
+        append(canonical, deal.getLastContact() == null ? null : deal.getLastContact().toString());
+        append(canonical, deal.getNextMeeting() == null ? null : deal.getNextMeeting().toString());
+        append(canonical, deal.getNotes());
+
+        return HexFormat.of().formatHex(sha256().digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void append(StringBuilder canonical, String value) {
+        if (value == null) {
+            canonical.append(NULL_MARKER);
+        } else {
+            canonical.append(value);
+        }
+        canonical.append(FIELD_SEPARATOR);
+    }
+
+    // 500000 and 500000.00 describe the same deal value
+    private static String decimal(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros().toPlainString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.sales.service;
+
+import com.example.sales.model.dto.CsvDealRow;
+import com.example.sales.model.entity.Deal;
+import com.example.sales.model.entity.User;
+import com.example.sales.model.enums.BudgetStatus;
+import com.example.sales.model.enums.DealStage;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DealRowDecoder {
+
+    private static final String INVALID_DATE_MESSAGE = "Invalid date format. Expected: yyyy-MM-dd";
+    private static final String VALID_DEAL_STAGES = Arrays.toString(DealStage.values());
+    private static final String VALID_BUDGET_STATUSES = Arrays.toString(BudgetStatus.values());
+
+    private static final Map<String, DealStage> DEAL_STAGES = new HashMap<>();
+    private static final Map<String, BudgetStatus> BUDGET_STATUSES = new HashMap<>();
+
+    static {
+        for (DealStage stage : DealStage.values()) {
+            DEAL_STAGES.put(stage.name(), stage);
+        }
+        // Common variations found in CRM exports
+        for (String alias : new String[]{"CLOSED-WON", "CLOSEDWON", "WON"}) {
+            DEAL_STAGES.put(alias, DealStage.CLOSED_WON);
+        }
+        for (String alias : new String[]{"CLOSED-LOST", "CLOSEDLOST", "LOST"}) {
+            DEAL_STAGES.put(alias, DealStage.CLOSED_LOST);
+        }
+
+        for (BudgetStatus status : BudgetStatus.values()) {
+            BUDGET_STATUSES.put(status.name(), status);
+        }
+        for (String alias : new String[]{"UNDER-REVIEW", "UNDERREVIEW", "PENDING", "REVIEW"}) {
+            BUDGET_STATUSES.put(alias, BudgetStatus.UNDER_REVIEW);
+        }
+        for (String alias : new String[]{"NOT-CONFIRMED", "NOTCONFIRMED", "UNCONFIRMED"}) {
+            BUDGET_STATUSES.put(alias, BudgetStatus.NOT_CONFIRMED);
+        }
+    }
+
+    public DecodedRow decode(CsvDealRow row, User user) {
+        Map<String, String> errors = new LinkedHashMap<>();
+
+        String dealId = requireText(row.getDealId(), "Deal_ID", "Deal ID is required", errors);
+        String companyName = requireText(row.getCompanyName(), "Company_Name", "Company Name is required", errors);
+        String contactName = requireText(row.getContactName(), "Contact_Name", "Contact Name is required", errors);
+        String contactEmail = requireText(row.getContactEmail(), "Contact_Email", "Contact Email is required", errors);
+
+        DealStage dealStage = null;
+        if (isBlank(row.getDealStage())) {
+            errors.put("Deal_Stage", "Deal Stage is required");
+        } else {
+            dealStage = DEAL_STAGES.get(normalizeEnumKey(row.getDealStage()));
+            if (dealStage == null) {
+                errors.put("Deal_Stage", "Invalid Deal Stage: " + row.getDealStage() +
+                        ". Valid values: " + VALID_DEAL_STAGES);
+            }
+        }
+
+        BigDecimal dealValue = null;
+        if (isBlank(row.getDealValue())) {
+            errors.put("Deal_Value", "Deal Value is required");
+        } else {
+            dealValue = decodeDecimal(row.getDealValue());
+            if (dealValue == null) {
+                errors.put("Deal_Value", "Deal Value must be a valid number");
+            }
+        }
+
+        BudgetStatus budgetStatus = null;
+        if (isBlank(row.getBudgetStatus())) {
+            errors.put("Budget_Status", "Budget Status is required");
+        } else {
+            budgetStatus = BUDGET_STATUSES.get(normalizeEnumKey(row.getBudgetStatus()));
+            if (budgetStatus == null) {
+                errors.put("Budget_Status", "Invalid Budget Status: " + row.getBudgetStatus() +
+                        ". Valid values: " + VALID_BUDGET_STATUSES);
+            }
+        }
+
+        LocalDate lastContact = decodeOptionalDate(row.getLastContact(), "Last_Contact", errors);
+        LocalDate nextMeeting = decodeOptionalDate(row.getNextMeeting(), "Next_Meeting", errors);
+
+        if (!errors.isEmpty()) {
+            return new DecodedRow(null, errors);
+        }
+
+        Deal deal = Deal.builder()
+                .dealId(dealId)
+                .companyName(companyName)
+                .contactName(contactName)
+                .contactEmail(contactEmail)
+                .contactTitle(trimOrNull(row.getContactTitle()))
+                .dealStage(dealStage)
+                .dealValue(dealValue)
+                .productInterest(trimOrNull(row.getProductInterest()))
+                .painPoints(trimOrNull(row.getPainPoints()))
+                .competition(trimOrNull(row.getCompetition()))
+                .decisionMaker(trimOrNull(row.getDecisionMaker()))
+                .budgetStatus(budgetStatus)
+                .salesRep(trimOrNull(row.getSalesRep()))
+                .region(trimOrNull(row.getRegion()))
+                .lastContact(lastContact)
+                .nextMeeting(nextMeeting)
+                .notes(trimOrNull(row.getNotes()))
+                .user(user)
+                .build();
+        deal.setContentHash(DealFingerprint.of(deal));
+        return new DecodedRow(deal, Map.of());
+    }
+
+    // Same result as new BigDecimal(value.replaceAll("[^\\d.]", "")), without the regex or the exception
+    static BigDecimal decodeDecimal(String value) {
+        char[] digits = new char[value.length()];
+        int length = 0;
+        int digitCount = 0;
+        int dotCount = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits[length++] = c;
+                digitCount++;
+            } else if (c == '.') {
+                digits[length++] = c;
+                dotCount++;
+            }
+        }
+
+        if (digitCount == 0 || dotCount > 1) {
+            return null;
+        }
+        return new BigDecimal(digits, 0, length);
+    }
+
+    // Same result as LocalDate.parse(value.trim(), ofPattern("yyyy-MM-dd")), except for signed years past 9999
+    static LocalDate decodeDate(String value) {
+        int start = trimStart(value);
+        int end = trimEnd(value);
+
+        int yearEnd = start;
+        while (yearEnd < end && isDigit(value.charAt(yearEnd))) {
+            yearEnd++;
+        }
+        if (yearEnd - start != 4 || end - yearEnd != 6
+                || value.charAt(yearEnd) != '-' || value.charAt(yearEnd + 3) != '-') {
+            return null;
+        }
+
+        int month = twoDigits(value, yearEnd + 1);
+        int day = twoDigits(value, yearEnd + 4);
+        int year = 0;
+        for (int i = start; i < yearEnd; i++) {
+            year = year * 10 + (value.charAt(i) - '0');
+        }
+
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+
+        // The formatter resolves day-of-month in SMART mode, clamping to the month's last day
+        int monthLength = Month.of(month).length(Year.isLeap(year));
+        return LocalDate.of(year, month, Math.min(day, monthLength));
+    }
+
+    private LocalDate decodeOptionalDate(String value, String column, Map<String, String> errors) {
+        if (isBlank(value)) {
+            return null;
+        }
+        LocalDate date = decodeDate(value);
+        if (date == null) {
+            errors.put(column, INVALID_DATE_MESSAGE);
+        }
+        return date;
+    }
+
+    private String requireText(String value, String column, String message, Map<String, String> errors) {
+        if (isBlank(value)) {
+            errors.put(column, message);
+            return null;
+        }
+        return value.trim();
+    }
+
+    // Upper-cases ASCII letters and turns spaces into underscores, matching the table keys
+    private static String normalizeEnumKey(String value) {
+        int start = trimStart(value);
+        int end = trimEnd(value);
+        char[] key = new char[end - start];
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                c = (char) (c - ('a' - 'A'));
+            } else if (c == ' ') {
+                c = '_';
+            }
+            key[i - start] = c;
+        }
+        return new String(key);
+    }
+
+    private static int twoDigits(String value, int index) {
+        char tens = value.charAt(index);
+        char ones = value.charAt(index + 1);
+        if (!isDigit(tens) || !isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Trim bounds use the same definition of whitespace as String.trim()
+    private static int trimStart(String value) {
+        int start = 0;
+        while (start < value.length() && value.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String value) {
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || trimStart(value) == value.length();
+    }
+
+    private static String trimOrNull(String value) {
+        return isBlank(value) ? null : value.trim();
+    }
+
+    public record DecodedRow(Deal deal, Map<String, String> fieldErrors) {
+
+        public boolean isValid() {
+            return deal != null;
+        }
+    }
+}
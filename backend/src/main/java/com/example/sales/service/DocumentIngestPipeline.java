@@ -0,0 +1,130 @@
+package com.example.sales.service;
+
+import com.example.sales.model.entity.DocumentChunk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Chunks flow from the extracting thread to the persist stage in batches. A per-document cap on batches
+// in flight blocks extraction when persistence falls behind. Embedding happens later, through the
+// vector outbox the persist stage writes to. A run never reports, successfully or not, while one of its
+// batches is still being written, so a retry of the document cannot overlap the failed attempt.
+@Component
+@Slf4j
+public class DocumentIngestPipeline {
+
+    private final Executor persistExecutor;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+
+    public DocumentIngestPipeline(@Qualifier("ingestPersistExecutor") Executor persistExecutor,
+                                  @Value("${rag.ingest.batch-size:32}") int batchSize,
+                                  @Value("${rag.ingest.max-batches-in-flight:4}") int maxBatchesInFlight) {
+        this.persistExecutor = persistExecutor;
+        this.batchSize = batchSize;
+        this.maxBatchesInFlight = maxBatchesInFlight;
+    }
+
+    public Run open(Function<List<TextChunkingService.ChunkInfo>, List<DocumentChunk>> persist) {
+        return new Run(persist);
+    }
+
+    public class Run implements Consumer<TextChunkingService.ChunkInfo>, AutoCloseable {
+
+        private final Function<List<TextChunkingService.ChunkInfo>, List<DocumentChunk>> persist;
+        private final Semaphore permits = new Semaphore(maxBatchesInFlight);
+        private final List<CompletableFuture<Integer>> batches = new ArrayList<>();
+        private List<TextChunkingService.ChunkInfo> pending = new ArrayList<>(batchSize);
+        private volatile Throwable failure;
+
+        private Run(Function<List<TextChunkingService.ChunkInfo>, List<DocumentChunk>> persist) {
+            this.persist = persist;
+        }
+
+        @Override
+        public void accept(TextChunkingService.ChunkInfo chunk) {
+            pending.add(chunk);
+            if (pending.size() >= batchSize) {
+                submit();
+            }
+        }
+
+        // Waits for every batch to be persisted; returns the number of chunks stored
+        public int await() {
+            submit();
+            drain();
+            if (failure != null) {
+                throw propagate(failure);
+            }
+            return batches.stream().mapToInt(CompletableFuture::join).sum();
+        }
+
+        // Waits out batches still in flight when extraction fails before await
+        @Override
+        public void close() {
+            drain();
+        }
+
+        private void submit() {
+            if (failure != null) {
+                throw fail(failure);
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw fail(new IllegalStateException("Interrupted while waiting for ingest stages", e));
+            }
+            // A batch may have failed while this one waited for a permit
+            if (failure != null) {
+                permits.release();
+                throw fail(failure);
+            }
+
+            List<TextChunkingService.ChunkInfo> batch = pending;
+            pending = new ArrayList<>(batchSize);
+            batches.add(CompletableFuture.supplyAsync(
+                            () -> persist.apply(batch).size(), persistExecutor)
+                    .whenComplete((stored, error) -> {
+                        permits.release();
+                        if (error != null && failure == null) {
+                            failure = error instanceof CompletionException ? error.getCause() : error;
+                        }
+                    }));
+        }
+
+        private void drain() {
+            try {
+                CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException e) {
+                // Recorded in failure by the batch itself
+            }
+        }
+
+        private RuntimeException fail(Throwable error) {
+            drain();
+            return propagate(error);
+        }
+
+        private RuntimeException propagate(Throwable error) {
+            if (error instanceof RuntimeException runtime) {
+                return runtime;
+            }
+            return new IllegalStateException("Ingest stage failed: " + error.getMessage(), error);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.DocumentNotResumableException;
+import com.example.sales.exception.JobLeaseLostException;
+import com.example.sales.model.dto.DocumentProgressEvent;
+import com.example.sales.model.entity.Document;
+import com.example.sales.model.entity.DocumentJob;
+import com.example.sales.model.enums.ProcessingStage;
+import com.example.sales.model.enums.ProcessingStatus;
+import com.example.sales.repository.DocumentJobRepository;
+import com.example.sales.repository.DocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentJobService {
+
+    private final DocumentJobRepository documentJobRepository;
+    private final DocumentRepository documentRepository;
+    private final DocumentProgressService documentProgressService;
+
+    @Value("${document.jobs.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${document.jobs.lease-seconds:600}")
+    private long leaseSeconds = 600;
+
+    @Value("${document.jobs.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds = 30;
+
+    @Transactional
+    public DocumentJob enqueue(Document document, SpooledUpload upload) {
+        DocumentJob saved = documentJobRepository.save(newJob(document, upload));
+        publish(document, ProcessingStage.QUEUED, null);
+        return saved;
+    }
+
+    // All jobs share one available_at, so an idle worker picks the batch up in a single claim
+    @Transactional
+    public List<DocumentJob> enqueueAll(List<Document> documents, List<SpooledUpload> uploads) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DocumentJob> jobs = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            DocumentJob job = newJob(documents.get(i), uploads.get(i));
+            job.setAvailableAt(now);
+            jobs.add(job);
+        }
+        List<DocumentJob> saved = documentJobRepository.saveAll(jobs);
+        documents.forEach(document -> publish(document, ProcessingStage.QUEUED, null));
+        return saved;
+    }
+
+    private DocumentJob newJob(Document document, SpooledUpload upload) {
+        return DocumentJob.builder()
+                .document(document)
+                .contentHash(upload.contentHash())
+                .fileSize(upload.size())
+                .status(ProcessingStatus.PENDING)
+                .build();
+    }
+
+    // Row locks only last until this transaction commits; from then on the lease is what marks a job as taken
+    @Transactional
+    public List<DocumentJob> claim(String owner, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DocumentJob> claimed = new ArrayList<>();
+
+        for (DocumentJob job : documentJobRepository.lockClaimable(now, limit)) {
+            if (job.getAttempts() >= maxAttempts) {
+                // The last attempt's worker died without reporting back
+                finish(job, ProcessingStatus.FAILED,
+                        "Lease expired after " + job.getAttempts() + " attempts (last owner " + job.getLeaseOwner() + ")");
+                continue;
+            }
+
+            job.setStatus(ProcessingStatus.PROCESSING);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLeaseOwner(owner);
+            job.setLeaseExpiresAt(now.plusSeconds(leaseSeconds));
+            claimed.add(job);
+        }
+
+        if (!claimed.isEmpty()) {
+            log.debug("Worker {} claimed {} document jobs", owner, claimed.size());
+        }
+        return claimed;
+    }
+
+    @Transactional
+    public void complete(Long jobId, String owner) {
+        DocumentJob job = lockOwned(jobId, owner);
+        if (job != null) {
+            finish(job, ProcessingStatus.COMPLETED, null);
+        }
+    }
+
+    @Transactional
+    public void fail(Long jobId, String owner, Exception error) {
+        DocumentJob job = lockOwned(jobId, owner);
+        if (job == null) {
+            return;
+        }
+
+        if (job.getAttempts() < maxAttempts) {
+            job.setStatus(ProcessingStatus.PENDING);
+            job.setAvailableAt(LocalDateTime.now().plusSeconds(retryBackoffSeconds * job.getAttempts()));
+            job.setLeaseOwner(null);
+            job.setLeaseExpiresAt(null);
+            job.setLastError(error.getMessage());
+            updateDocument(job, ProcessingStatus.PENDING, error.getMessage());
+            publish(job.getDocument(), ProcessingStage.QUEUED,
+                    "Attempt " + job.getAttempts() + " failed, retrying: " + error.getMessage());
+            log.warn("Document job {} failed on attempt {}/{}, retrying: {}",
+                    jobId, job.getAttempts(), maxAttempts, error.getMessage());
+            return;
+        }
+
+        finish(job, ProcessingStatus.FAILED, error.getMessage());
+        log.error("Document job {} failed after {} attempts", jobId, job.getAttempts());
+    }
+
+    // Puts a failed document's last job back in the queue with fresh attempts; the run picks up at its checkpoint
+    @Transactional
+    public DocumentJob resume(Document document) {
+        DocumentJob job = documentJobRepository.findFirstByDocumentOrderByIdDesc(document)
+                .orElseThrow(() -> new DocumentNotResumableException(document.getId(), "it has no processing job"));
+
+        job.setStatus(ProcessingStatus.PENDING);
+        job.setAttempts(0);
+        job.setAvailableAt(LocalDateTime.now());
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        job.setLastError(null);
+        updateDocument(job, ProcessingStatus.PENDING, null);
+        publish(document, ProcessingStage.QUEUED, "Resuming");
+        log.info("Resuming document {} with job {}", document.getId(), job.getId());
+        return job;
+    }
+
+    // Runs work in one transaction with the lease row share-locked, so a worker whose lease expired and was
+    // reclaimed elsewhere cannot write chunks or a checkpoint over the new owner's run
+    @Transactional
+    public <T> T whileHeld(Lease lease, Supplier<T> work) {
+        if (documentJobRepository.findHeldForShare(lease.jobId(), lease.owner(), lease.attempt()).isEmpty()) {
+            throw new JobLeaseLostException(lease.jobId(), lease.owner(), lease.attempt());
+        }
+        return work.get();
+    }
+
+    @Transactional
+    public void renewLeases(String owner, Collection<Long> jobIds) {
+        documentJobRepository.renewLeases(jobIds, owner, LocalDateTime.now().plusSeconds(leaseSeconds));
+    }
+
+    // A worker whose lease expired may finish after another node reclaimed the job; its outcome is dropped
+    private DocumentJob lockOwned(Long jobId, String owner) {
+        DocumentJob job = documentJobRepository.findByIdForUpdate(jobId).orElse(null);
+        if (job == null || job.getStatus() != ProcessingStatus.PROCESSING || !owner.equals(job.getLeaseOwner())) {
+            log.warn("Worker {} no longer holds the lease for document job {}", owner, jobId);
+            return null;
+        }
+        return job;
+    }
+
+    private void finish(DocumentJob job, ProcessingStatus status, String error) {
+        job.setStatus(status);
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        job.setLastError(error);
+        if (status == ProcessingStatus.FAILED) {
+            updateDocument(job, ProcessingStatus.FAILED, error);
+            publish(job.getDocument(), ProcessingStage.FAILED, error);
+        }
+    }
+
+    public record Lease(Long jobId, String owner, int attempt) {}
+
+    private void publish(Document document, ProcessingStage stage, String message) {
+        documentProgressService.publish(document.getUser().getId(), DocumentProgressEvent.builder()
+                .documentId(document.getId())
+                .fileName(document.getOriginalFileName())
+                .stage(stage)
+                .message(message)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    private void updateDocument(DocumentJob job, ProcessingStatus status, String error) {
+        Document document = job.getDocument();
+        document.setProcessingStatus(status);
+        document.setErrorMessage(error);
+        documentRepository.save(document);
+    }
+}
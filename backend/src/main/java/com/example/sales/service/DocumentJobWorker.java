@@ -0,0 +1,94 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.JobLeaseLostException;
+import com.example.sales.model.entity.DocumentJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+@Component
+@Slf4j
+public class DocumentJobWorker {
+
+    private final DocumentJobService documentJobService;
+    private final DocumentProcessingService documentProcessingService;
+    private final UploadSpoolService uploadSpoolService;
+    private final Executor documentProcessingExecutor;
+    private final int concurrency;
+    private final String workerId;
+
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    public DocumentJobWorker(DocumentJobService documentJobService,
+                             DocumentProcessingService documentProcessingService,
+                             UploadSpoolService uploadSpoolService,
+                             @Qualifier("documentProcessingExecutor") Executor documentProcessingExecutor,
+                             @Value("${document.jobs.concurrency:2}") int concurrency,
+                             @Value("${document.jobs.worker-id:}") String workerId) {
+        this.documentJobService = documentJobService;
+        this.documentProcessingService = documentProcessingService;
+        this.uploadSpoolService = uploadSpoolService;
+        this.documentProcessingExecutor = documentProcessingExecutor;
+        this.concurrency = concurrency;
+        this.workerId = workerId.isBlank() ? defaultWorkerId() : workerId;
+    }
+
+    // Claims only as many jobs as there are free slots, so the executor never has to reject work
+    @Scheduled(fixedDelayString = "${document.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        int free = concurrency - running.size();
+        if (free <= 0) {
+            return;
+        }
+
+        List<DocumentJob> jobs = documentJobService.claim(workerId, free);
+        for (DocumentJob job : jobs) {
+            running.add(job.getId());
+            try {
+                documentProcessingExecutor.execute(() -> run(job));
+            } catch (TaskRejectedException e) {
+                // The lease runs out and another poll picks the job up again
+                running.remove(job.getId());
+                log.warn("Document job {} was claimed but could not be started", job.getId(), e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${document.jobs.heartbeat-interval-ms:60000}")
+    public void renewLeases() {
+        if (!running.isEmpty()) {
+            documentJobService.renewLeases(workerId, Set.copyOf(running));
+        }
+    }
+
+    private void run(DocumentJob job) {
+        try {
+            SpooledUpload upload = uploadSpoolService.resolve(job.getContentHash(), job.getFileSize());
+            DocumentJobService.Lease lease = new DocumentJobService.Lease(job.getId(), workerId, job.getAttempts());
+            documentProcessingService.processDocument(job.getDocument().getId(), upload, lease);
+            documentJobService.complete(job.getId(), workerId);
+        } catch (JobLeaseLostException e) {
+            // Another node reclaimed the job; its run owns the document from here on
+            log.warn("Abandoning document job {}: {}", job.getId(), e.getMessage());
+        } catch (Exception e) {
+            log.error("Document job {} failed on attempt {}", job.getId(), job.getAttempts(), e);
+            documentJobService.fail(job.getId(), workerId, e);
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    private static String defaultWorkerId() {
+        String host = System.getenv().getOrDefault("HOSTNAME", "worker");
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
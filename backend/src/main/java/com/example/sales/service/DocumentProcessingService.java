@@ -2,20 +2,18 @@ package com.example.sales.service;
 
 import com.example.sales.model.entity.Deal;
 import com.example.sales.model.entity.Document;
-import com.example.sales.model.entity.DocumentChunk;
 import com.example.sales.model.entity.User;
 import com.example.sales.model.enums.DocumentType;
+import com.example.sales.model.enums.ProcessingStage;
 import com.example.sales.model.enums.ProcessingStatus;
 import com.example.sales.repository.DealRepository;
-import com.example.sales.repository.DocumentChunkRepository;
 import com.example.sales.repository.DocumentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -27,102 +25,121 @@ public class DocumentProcessingService {
 
     private final PdfExtractionService pdfExtractionService;
     private final TextChunkingService textChunkingService;
-    private final EmbeddingService embeddingService;
     private final DocumentRepository documentRepository;
-    private final DocumentChunkRepository documentChunkRepository;
     private final DealRepository dealRepository;
+    private final DocumentIngestPipeline documentIngestPipeline;
+    private final DocumentProgressService documentProgressService;
+    private final VectorOutboxService vectorOutboxService;
+    private final DocumentJobService documentJobService;
 
     @Transactional
-    public Document createDocument(MultipartFile file, User user, String dealId) {
-        Deal deal = null;
-        if (dealId != null && !dealId.isBlank()) {
-            deal = dealRepository.findByDealIdAndUser(dealId, user).orElse(null);
+    public Document createDocument(UploadDescriptor upload, User user, String dealId) {
+        return createDocument(upload, user, dealId, null);
+    }
+
+    // A document with a source is an alias: it is complete on creation and never enters the pipeline
+    @Transactional
+    public Document createDocument(UploadDescriptor upload, User user, String dealId, Document sourceDocument) {
+        return documentRepository.save(newDocument(upload, user, findDeal(dealId, user), sourceDocument));
+    }
+
+    // sourceDocuments lines up with uploads, holding null for content that still has to be processed
+    @Transactional
+    public List<Document> createDocuments(List<UploadDescriptor> uploads, List<Document> sourceDocuments,
+                                          User user, String dealId) {
+        Deal deal = findDeal(dealId, user);
+        List<Document> documents = new ArrayList<>(uploads.size());
+        for (int i = 0; i < uploads.size(); i++) {
+            documents.add(newDocument(uploads.get(i), user, deal, sourceDocuments.get(i)));
+        }
+        return documentRepository.saveAll(documents);
+    }
+
+    private Deal findDeal(String dealId, User user) {
+        if (dealId == null || dealId.isBlank()) {
+            return null;
         }
+        return dealRepository.findByDealIdAndUser(dealId, user).orElse(null);
+    }
 
-        Document document = Document.builder()
-                .fileName(generateUniqueFileName(file.getOriginalFilename()))
-                .originalFileName(file.getOriginalFilename())
-                .contentType(file.getContentType())
-                .fileSize(file.getSize())
-                .documentType(inferDocumentType(file.getOriginalFilename()))
-                .processingStatus(ProcessingStatus.PENDING)
+    private Document newDocument(UploadDescriptor upload, User user, Deal deal, Document sourceDocument) {
+        return Document.builder()
+                .fileName(generateUniqueFileName(upload.fileName()))
+                .originalFileName(upload.fileName())
+                .contentType(upload.mimeType())
+                .fileSize(upload.size())
+                .contentHash(upload.contentHash())
+                .documentType(inferDocumentType(upload.fileName()))
+                .processingStatus(sourceDocument != null ? ProcessingStatus.COMPLETED : ProcessingStatus.PENDING)
+                .totalPages(sourceDocument != null ? sourceDocument.getTotalPages() : null)
+                .totalChunks(sourceDocument != null ? sourceDocument.getTotalChunks() : null)
+                .sourceDocument(sourceDocument)
                 .user(user)
                 .deal(deal)
                 .build();
-
-        return documentRepository.save(document);
     }
 
-    @Async("documentProcessingExecutor")
-    public void processDocumentAsync(Long documentId, MultipartFile file, User user) {
+    // Runs on a document job worker; failures propagate so the job can be retried or marked failed.
+    // The run ends at the chunk checkpoint, leaving embedding to the vector outbox relay; a run for a
+    // checkpointed document only requeues the chunks that never reached the vector store. Every write is fenced
+    // by the job lease, so a run that lost its lease stops at its next batch.
+    public void processDocument(Long documentId, SpooledUpload upload, DocumentJobService.Lease lease) {
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new RuntimeException("Document not found: " + documentId));
-
-        try {
-            document.setProcessingStatus(ProcessingStatus.PROCESSING);
-            documentRepository.save(document);
-
-            // Step 1: Extract text
-            PdfExtractionService.ExtractedContent extracted = pdfExtractionService.extractText(file);
-            document.setTotalPages(extracted.getPageCount());
-
-            // Step 2: Chunk text
-            List<TextChunkingService.ChunkInfo> chunkInfos =
-                    textChunkingService.chunkText(extracted.getText(), document.getOriginalFileName());
-
-            // Step 3: Save chunks to database
-            List<DocumentChunk> savedChunks = saveChunks(document, chunkInfos, user);
-            document.setTotalChunks(savedChunks.size());
-
-            // Step 4: Generate embeddings and store in vector store
-            List<EmbeddingService.ChunkWithMetadata> chunksWithMetadata = savedChunks.stream()
-                    .map(chunk -> EmbeddingService.ChunkWithMetadata.builder()
-                            .id(chunk.getId())
-                            .content(chunk.getContent())
-                            .documentId(document.getId())
-                            .fileName(document.getOriginalFileName())
-                            .chunkIndex(chunk.getChunkIndex())
-                            .pageNumber(chunk.getPageNumber())
-                            .build())
-                    .toList();
-
-            embeddingService.storeChunks(chunksWithMetadata, user.getId());
-
-            document.setProcessingStatus(ProcessingStatus.COMPLETED);
-            documentRepository.save(document);
-
-            log.info("Successfully processed document: {} with {} chunks",
-                    document.getOriginalFileName(), savedChunks.size());
-
-        } catch (Exception e) {
-            log.error("Failed to process document: {}", document.getOriginalFileName(), e);
-            document.setProcessingStatus(ProcessingStatus.FAILED);
-            document.setErrorMessage(e.getMessage());
-            documentRepository.save(document);
+        User user = document.getUser();
+
+        document.setProcessingStatus(ProcessingStatus.PROCESSING);
+        document.setErrorMessage(null);
+        documentRepository.save(document);
+
+        DocumentProgressService.Tracker progress = documentProgressService.track(document);
+        if (document.getChunksPersistedAt() == null) {
+            extractAndPersist(document, upload, user, progress, lease);
+        } else {
+            int requeued = documentJobService.whileHeld(lease, () -> vectorOutboxService.requeue(document));
+            log.info("Resuming document {}: {} of {} chunks still to embed",
+                    documentId, requeued, document.getTotalChunks());
         }
+        progress.stage(ProcessingStage.EMBEDDING);
+
+        // The relay completes the document once its outbox entries are flushed; this covers a relay that
+        // drained them before the checkpoint was committed
+        vectorOutboxService.completeDrained(List.of(documentId));
     }
 
-    @Transactional
-    public List<DocumentChunk> saveChunks(Document document,
-                                          List<TextChunkingService.ChunkInfo> chunkInfos,
-                                          User user) {
-        List<DocumentChunk> chunks = new ArrayList<>();
-
-        for (TextChunkingService.ChunkInfo info : chunkInfos) {
-            DocumentChunk chunk = DocumentChunk.builder()
-                    .id(UUID.randomUUID().toString())
-                    .document(document)
-                    .user(user)
-                    .chunkIndex(info.getChunkIndex())
-                    .content(info.getContent())
-                    .startOffset(info.getStartOffset())
-                    .endOffset(info.getEndOffset())
-                    .tokenCount(info.getTokenCount())
-                    .build();
-            chunks.add(chunk);
+    private void extractAndPersist(Document document, SpooledUpload upload, User user,
+                                   DocumentProgressService.Tracker progress, DocumentJobService.Lease lease) {
+        // Extraction did not finish last time; its partial chunks are dropped rather than matched up
+        int staleChunks = documentJobService.whileHeld(lease, () -> vectorOutboxService.deleteChunks(document));
+        if (staleChunks > 0) {
+            log.info("Dropped {} chunks of an earlier attempt for document {}", staleChunks, document.getId());
+        }
+
+        // Extraction and chunking run here; each full batch of chunks is persisted together with its outbox
+        // entries while later pages are still being extracted
+        progress.stage(ProcessingStage.EXTRACTING);
+        Integer pageCount;
+        int storedChunks;
+        try (DocumentIngestPipeline.Run ingest = documentIngestPipeline.open(
+                batch -> documentJobService.whileHeld(lease,
+                        () -> vectorOutboxService.saveChunks(document, batch, user)))) {
+            TextChunkingService.PageChunker chunker = textChunkingService.openChunker(
+                    document.getOriginalFileName(), chunk -> {
+                        progress.chunkCreated();
+                        ingest.accept(chunk);
+                    });
+            pageCount = pdfExtractionService.extractPages(
+                    upload, document.getOriginalFileName(), document.getContentType(), (pageNumber, text) -> {
+                        chunker.addPage(pageNumber, text);
+                        progress.pageExtracted(pageNumber);
+                    });
+            chunker.finish();
+            storedChunks = ingest.await();
         }
 
-        return documentChunkRepository.saveAll(chunks);
+        documentJobService.whileHeld(lease, () -> documentRepository.markChunksPersisted(
+                document.getId(), pageCount, storedChunks, LocalDateTime.now()));
+        log.info("Extracted document: {} into {} chunks", document.getOriginalFileName(), storedChunks);
     }
 
     private String generateUniqueFileName(String originalName) {
@@ -0,0 +1,96 @@
+package com.example.sales.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Receives progress events published by any node and hands them to this node's SSE subscribers. The
+// connection stays open for as long as the node runs, so it is opened outside the Hikari pool.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentProgressListener implements SmartLifecycle {
+
+    private static final int POLL_TIMEOUT_MS = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final DocumentProgressService documentProgressService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${document.progress.listen-reconnect-ms:5000}")
+    private long reconnectMs = 5000;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("ProgressListener").start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + DocumentProgressService.CHANNEL);
+                }
+                PGConnection listener = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = listener.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                // Events published while disconnected are lost; a client that reconnects gets a fresh snapshot
+                log.warn("Progress listener lost its connection, reconnecting in {} ms", reconnectMs, e);
+                try {
+                    Thread.sleep(reconnectMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        try {
+            DocumentProgressService.ProgressNotification notification =
+                    objectMapper.readValue(payload, DocumentProgressService.ProgressNotification.class);
+            documentProgressService.dispatch(notification.userId(), notification.event());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring malformed progress notification: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.sales.service;
+
+import com.example.sales.model.dto.DocumentProgressEvent;
+import com.example.sales.model.entity.Document;
+import com.example.sales.model.enums.ProcessingStage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Pushes processing progress to SSE subscribers. A job runs on whichever node claimed it while its
+// subscriber may be connected to any other, so events travel through Postgres NOTIFY and every node's
+// DocumentProgressListener hands them to the subscribers connected there.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentProgressService {
+
+    static final String CHANNEL = "document_progress";
+
+    private static final String EVENT_NAME = "progress";
+
+    // NOTIFY payloads are capped at 8000 bytes; only an error message can get anywhere near that
+    private static final int MAX_MESSAGE_CHARS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    @Value("${document.progress.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs = 1_800_000;
+
+    @Value("${document.progress.min-interval-ms:500}")
+    private long minIntervalMs = 500;
+
+    // documentId null subscribes to all of the user's documents. The snapshot is read after registering,
+    // so a transition that lands in between is delivered rather than lost.
+    public SseEmitter subscribe(Long userId, Long documentId, Supplier<List<DocumentProgressEvent>> snapshot) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscription subscription = new Subscription(documentId, emitter);
+        List<Subscription> userSubscriptions =
+                subscriptions.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>());
+        userSubscriptions.add(subscription);
+
+        Runnable remove = () -> unsubscribe(userId, subscription);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        for (DocumentProgressEvent event : snapshot.get()) {
+            deliver(userId, subscription, event);
+        }
+        return emitter;
+    }
+
+    // Inside a transaction Postgres holds the notification until commit and drops it on rollback, so
+    // subscribers never see a transition that did not happen
+    public void publish(Long userId, DocumentProgressEvent event) {
+        if (event.getMessage() != null && event.getMessage().length() > MAX_MESSAGE_CHARS) {
+            event.setMessage(event.getMessage().substring(0, MAX_MESSAGE_CHARS));
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(new ProgressNotification(userId, event));
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping progress event for document {}: {}", event.getDocumentId(), e.getMessage());
+            return;
+        }
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+    }
+
+    // Delivers an event received from the channel to the subscribers connected to this node
+    void dispatch(Long userId, DocumentProgressEvent event) {
+        List<Subscription> userSubscriptions = subscriptions.get(userId);
+        if (userSubscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : userSubscriptions) {
+            if (subscription.documentId() == null || subscription.documentId().equals(event.getDocumentId())) {
+                deliver(userId, subscription, event);
+            }
+        }
+    }
+
+    public Tracker track(Document document) {
+        return new Tracker(document.getUser().getId(), document.getId(), document.getOriginalFileName());
+    }
+
+    public DocumentProgressEvent snapshot(Document document) {
+        ProcessingStage stage = switch (document.getProcessingStatus()) {
+            case PENDING -> ProcessingStage.QUEUED;
+            case PROCESSING -> document.getChunksPersistedAt() != null
+                    ? ProcessingStage.EMBEDDING
+                    : ProcessingStage.EXTRACTING;
+            case COMPLETED -> ProcessingStage.COMPLETED;
+            case FAILED -> ProcessingStage.FAILED;
+        };
+        return DocumentProgressEvent.builder()
+                .documentId(document.getId())
+                .fileName(document.getOriginalFileName())
+                .stage(stage)
+                .totalPages(document.getTotalPages())
+                .chunksCreated(document.getTotalChunks())
+                .message(document.getErrorMessage())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    int subscriberCount(Long userId) {
+        List<Subscription> userSubscriptions = subscriptions.get(userId);
+        return userSubscriptions != null ? userSubscriptions.size() : 0;
+    }
+
+    private void deliver(Long userId, Subscription subscription, DocumentProgressEvent event) {
+        try {
+            subscription.emitter().send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .data(event, MediaType.APPLICATION_JSON));
+            // A single-document stream has nothing left to say once its document is done
+            if (subscription.documentId() != null && event.getStage().isTerminal()) {
+                subscription.emitter().complete();
+                unsubscribe(userId, subscription);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping progress subscriber for user {}: {}", userId, e.getMessage());
+            unsubscribe(userId, subscription);
+        }
+    }
+
+    private void unsubscribe(Long userId, Subscription subscription) {
+        subscriptions.computeIfPresent(userId, (id, userSubscriptions) -> {
+            userSubscriptions.remove(subscription);
+            return userSubscriptions.isEmpty() ? null : userSubscriptions;
+        });
+    }
+
+    private record Subscription(Long documentId, SseEmitter emitter) {}
+
+    record ProgressNotification(Long userId, DocumentProgressEvent event) {}
+
+    // Tracks one processing run up to its chunk checkpoint; embedding progress is published by the outbox relay.
+    // Count-only updates are throttled to min-interval-ms while stage transitions always go out.
+    public class Tracker {
+
+        private final Long userId;
+        private final Long documentId;
+        private final String fileName;
+        private final AtomicInteger pagesExtracted = new AtomicInteger();
+        private final AtomicInteger chunksCreated = new AtomicInteger();
+        private volatile ProcessingStage stage = ProcessingStage.QUEUED;
+        private volatile long lastPublishedAt;
+
+        private Tracker(Long userId, Long documentId, String fileName) {
+            this.userId = userId;
+            this.documentId = documentId;
+            this.fileName = fileName;
+        }
+
+        public void stage(ProcessingStage next) {
+            stage = next;
+            publishNow();
+        }
+
+        public void pageExtracted(int pageNumber) {
+            pagesExtracted.set(pageNumber);
+            publishThrottled();
+        }
+
+        public void chunkCreated() {
+            chunksCreated.incrementAndGet();
+        }
+
+        private void publishThrottled() {
+            long now = System.currentTimeMillis();
+            if (now - lastPublishedAt >= minIntervalMs) {
+                publishNow();
+            }
+        }
+
+        private void publishNow() {
+            lastPublishedAt = System.currentTimeMillis();
+            publish(userId, DocumentProgressEvent.builder()
+                    .documentId(documentId)
+                    .fileName(fileName)
+                    .stage(stage)
+                    .pagesExtracted(pagesExtracted.get())
+                    .chunksCreated(chunksCreated.get())
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+    }
+}
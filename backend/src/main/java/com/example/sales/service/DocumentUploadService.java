@@ -0,0 +1,164 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.DocumentNotResumableException;
+import com.example.sales.model.entity.Document;
+import com.example.sales.model.entity.User;
+import com.example.sales.model.enums.ProcessingStatus;
+import com.example.sales.repository.DocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentUploadService {
+
+    private final DocumentProcessingService documentProcessingService;
+    private final DocumentJobService documentJobService;
+    private final DocumentRepository documentRepository;
+    private final UploadSpoolService uploadSpoolService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${document.upload.batch-max-files:500}")
+    private int batchMaxFiles = 500;
+
+    // Bytes this user has already had processed are aliased to the earlier document, whose chunks and
+    // vectors already serve every search; only new content is spooled and queued for the pipeline
+    public Document submit(MultipartFile file, UploadDescriptor upload, User user, String dealId) {
+        Document processed = findProcessed(upload, user);
+        if (processed != null) {
+            Document alias = documentProcessingService.createDocument(upload, user, dealId, processed);
+            log.info("Upload {} matches processed document {}; reusing its chunks", upload.fileName(), processed.getId());
+            return alias;
+        }
+
+        // The document and its job commit together, so a pending document always has a job to run it
+        SpooledUpload spooled = uploadSpoolService.spool(file, upload);
+        return transactionTemplate.execute(status -> {
+            Document document = documentProcessingService.createDocument(upload, user, dealId);
+            documentJobService.enqueue(document, spooled);
+            return document;
+        });
+    }
+
+    // Called before any file is read, so an oversized batch is rejected without hashing its contents
+    public void checkBatchSize(int fileCount) {
+        if (fileCount > batchMaxFiles) {
+            throw new IllegalArgumentException(
+                    "A batch upload accepts at most " + batchMaxFiles + " files, got " + fileCount);
+        }
+    }
+
+    // Files are spooled before the transaction opens, so it only covers the document and job inserts:
+    // either the whole batch is queued or none of it is. Results line up with files; identical files
+    // within the batch are stored and queued once and every copy gets the first one's document.
+    public List<Document> submitAll(List<MultipartFile> files, List<UploadDescriptor> uploads, User user, String dealId) {
+        checkBatchSize(files.size());
+
+        List<Integer> distinct = new ArrayList<>(uploads.size());
+        int[] distinctIndexOf = new int[uploads.size()];
+        Map<String, Integer> distinctByHash = new HashMap<>();
+        for (int i = 0; i < uploads.size(); i++) {
+            String hash = uploads.get(i).contentHash();
+            Integer seen = hash != null ? distinctByHash.get(hash) : null;
+            if (seen == null) {
+                seen = distinct.size();
+                distinct.add(i);
+                if (hash != null) {
+                    distinctByHash.put(hash, seen);
+                }
+            }
+            distinctIndexOf[i] = seen;
+        }
+        List<UploadDescriptor> distinctUploads = distinct.stream().map(uploads::get).toList();
+
+        Map<String, Document> processedByHash = findProcessed(distinctUploads, user);
+        List<Document> sourceDocuments = new ArrayList<>(distinct.size());
+        List<SpooledUpload> spooled = new ArrayList<>(distinct.size());
+        for (int index : distinct) {
+            UploadDescriptor upload = uploads.get(index);
+            Document processed = upload.contentHash() != null ? processedByHash.get(upload.contentHash()) : null;
+            sourceDocuments.add(processed);
+            spooled.add(processed == null ? uploadSpoolService.spool(files.get(index), upload) : null);
+        }
+
+        List<Document> documents = transactionTemplate.execute(status -> {
+            List<Document> created =
+                    documentProcessingService.createDocuments(distinctUploads, sourceDocuments, user, dealId);
+            List<Document> queued = new ArrayList<>();
+            List<SpooledUpload> queuedUploads = new ArrayList<>();
+            for (int i = 0; i < created.size(); i++) {
+                if (spooled.get(i) != null) {
+                    queued.add(created.get(i));
+                    queuedUploads.add(spooled.get(i));
+                }
+            }
+            if (!queued.isEmpty()) {
+                documentJobService.enqueueAll(queued, queuedUploads);
+            }
+            return created;
+        });
+
+        long aliased = sourceDocuments.stream().filter(Objects::nonNull).count();
+        log.info("Batch upload of {} files: {} queued, {} reused processed documents, {} repeated within the batch",
+                uploads.size(), distinct.size() - aliased, aliased, uploads.size() - distinct.size());
+        List<Document> results = new ArrayList<>(uploads.size());
+        for (int index : distinctIndexOf) {
+            results.add(documents.get(index));
+        }
+        return results;
+    }
+
+    // Without the chunk checkpoint the run has to extract again, which needs the spooled bytes
+    public Document resume(Document document) {
+        if (document.getProcessingStatus() != ProcessingStatus.FAILED) {
+            throw new DocumentNotResumableException(document.getId(),
+                    "only failed documents can be resumed (status " + document.getProcessingStatus() + ")");
+        }
+        if (document.getChunksPersistedAt() == null && document.getContentHash() != null
+                && !Files.exists(uploadSpoolService.resolve(document.getContentHash(), document.getFileSize()).path())) {
+            throw new DocumentNotResumableException(document.getId(),
+                    "the original upload is no longer spooled; upload the file again");
+        }
+        documentJobService.resume(document);
+        return document;
+    }
+
+    private Map<String, Document> findProcessed(List<UploadDescriptor> uploads, User user) {
+        Set<String> hashes = new HashSet<>();
+        for (UploadDescriptor upload : uploads) {
+            if (upload.contentHash() != null) {
+                hashes.add(upload.contentHash());
+            }
+        }
+        Map<String, Document> processedByHash = new HashMap<>();
+        if (!hashes.isEmpty()) {
+            // Oldest first, so putIfAbsent keeps the same original as the single-file lookup
+            for (Document processed : documentRepository.findProcessedByContentHashIn(user, hashes)) {
+                processedByHash.putIfAbsent(processed.getContentHash(), processed);
+            }
+        }
+        return processedByHash;
+    }
+
+    private Document findProcessed(UploadDescriptor upload, User user) {
+        if (upload.contentHash() == null) {
+            return null;
+        }
+        List<Document> processed = documentRepository.findProcessedByContentHash(user, upload.contentHash());
+        return processed.isEmpty() ? null : processed.get(0);
+    }
+}
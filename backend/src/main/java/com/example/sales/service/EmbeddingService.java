@@ -22,6 +22,7 @@ import java.util.stream.Collectors;
 public class EmbeddingService {
 
     private final VectorStore vectorStore;
+    private final ResourceLimits resourceLimits;
 
     @Retryable(
         retryFor = {Exception.class},
@@ -39,12 +40,13 @@ public class EmbeddingService {
                                     "documentId", chunk.getDocumentId().toString(),
                                     "fileName", chunk.getFileName(),
                                     "chunkIndex", chunk.getChunkIndex(),
-                                    "pageNumber", chunk.getPageNumber() != null ? chunk.getPageNumber() : 0
+                                    "pageNumber", chunk.getPageNumber() != null ? chunk.getPageNumber() : 0,
+                                    "pageEndNumber", chunk.getPageEndNumber() != null ? chunk.getPageEndNumber() : 0
                             )
                     ))
                     .collect(Collectors.toList());
 
-            vectorStore.add(documents);
+            resourceLimits.run(ResourceLimits.Resource.EMBEDDING, () -> vectorStore.add(documents));
             log.info("Stored {} chunks in vector store for user {}", chunks.size(), userId);
 
         } catch (Exception e) {
@@ -53,6 +55,7 @@ public class EmbeddingService {
         }
     }
 
+    // Failures propagate so the outbox relay keeps the delete pending
     public void deleteChunks(List<String> chunkIds) {
         if (chunkIds == null || chunkIds.isEmpty()) {
             return;
@@ -62,6 +65,7 @@ public class EmbeddingService {
             log.info("Deleted {} chunks from vector store", chunkIds.size());
         } catch (Exception e) {
             log.error("Failed to delete chunks from vector store", e);
+            throw new EmbeddingGenerationException("Failed to delete chunks from vector store: " + e.getMessage());
         }
     }
 
@@ -75,5 +79,6 @@ public class EmbeddingService {
         private String fileName;
         private Integer chunkIndex;
         private Integer pageNumber;
+        private Integer pageEndNumber;
     }
 }
@@ -9,6 +9,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.Set;
 
 @Service
@@ -30,6 +35,10 @@ public class FileService {
 
     private static final String PDF_MIME_TYPE = "application/pdf";
 
+    // Tika's magic and text detectors never look further than this
+    private static final int SNIFF_LIMIT = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 8192;
+
     private final Tika tika = new Tika();
 
     @Value("${spring.servlet.multipart.max-file-size:10MB}")
@@ -40,23 +49,45 @@ public class FileService {
         return Long.parseLong(size) * 1024 * 1024;
     }
 
-    public void validateFile(MultipartFile file) {
-        validateFileSize(file);
-        validateFileType(file);
+    // Reads the upload once: the prefix is kept for type detection while the whole stream is hashed
+    public UploadDescriptor describe(MultipartFile file) {
+        byte[] prefix = new byte[SNIFF_LIMIT];
+        int prefixLength = 0;
+        MessageDigest digest = sha256();
+
+        try (InputStream input = file.getInputStream()) {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                if (prefixLength < prefix.length) {
+                    int copied = Math.min(read, prefix.length - prefixLength);
+                    System.arraycopy(buffer, 0, prefix, prefixLength, copied);
+                    prefixLength += copied;
+                }
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            log.error("Failed to read upload: {}", file.getOriginalFilename(), e);
+            return new UploadDescriptor(file.getOriginalFilename(), "unknown", "UNKNOWN", file.getSize(), null);
+        }
+
+        String mimeType = tika.detect(Arrays.copyOf(prefix, prefixLength), file.getOriginalFilename());
+        return new UploadDescriptor(file.getOriginalFilename(), mimeType, classify(mimeType), file.getSize(),
+                HexFormat.of().formatHex(digest.digest()));
     }
 
-    private void validateFileSize(MultipartFile file) {
+    public void validate(UploadDescriptor upload) {
         long maxSize = getMaxFileSizeBytes();
-        if (file.getSize() > maxSize) {
-            throw new FileSizeExceededException(file.getOriginalFilename(), file.getSize(), maxSize);
+        if (upload.size() > maxSize) {
+            throw new FileSizeExceededException(upload.fileName(), upload.size(), maxSize);
+        }
+        if (!ALLOWED_MIME_TYPES.contains(upload.mimeType())) {
+            throw new InvalidFileTypeException(upload.fileName(), upload.mimeType());
         }
     }
 
-    private void validateFileType(MultipartFile file) {
-        String mimeType = detectMimeType(file);
-        if (!ALLOWED_MIME_TYPES.contains(mimeType)) {
-            throw new InvalidFileTypeException(file.getOriginalFilename(), mimeType);
-        }
+    public void validateFile(MultipartFile file) {
+        validate(describe(file));
     }
 
     public String detectMimeType(MultipartFile file) {
@@ -69,13 +100,7 @@ public class FileService {
     }
 
     public String getFileType(MultipartFile file) {
-        String mimeType = detectMimeType(file);
-        if (CSV_MIME_TYPES.contains(mimeType)) {
-            return "CSV";
-        } else if (PDF_MIME_TYPE.equals(mimeType)) {
-            return "PDF";
-        }
-        return "UNKNOWN";
+        return classify(detectMimeType(file));
     }
 
     public boolean isCsvFile(MultipartFile file) {
@@ -85,4 +110,21 @@ public class FileService {
     public boolean isPdfFile(MultipartFile file) {
         return PDF_MIME_TYPE.equals(detectMimeType(file));
     }
+
+    private String classify(String mimeType) {
+        if (CSV_MIME_TYPES.contains(mimeType)) {
+            return "CSV";
+        } else if (PDF_MIME_TYPE.equals(mimeType)) {
+            return "PDF";
+        }
+        return "UNKNOWN";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
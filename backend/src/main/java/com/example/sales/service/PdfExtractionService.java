@@ -4,22 +4,49 @@ import com.example.sales.exception.PdfExtractionException;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class PdfExtractionService {
 
+    private final Executor pdfExtractionExecutor;
+
+    // Below this many pages a single handle on the caller's thread is faster than fanning out
+    @Value("${rag.extraction.parallel-page-threshold:64}")
+    private int parallelPageThreshold = 64;
+
+    @Value("${rag.extraction.pages-per-range:16}")
+    private int pagesPerRange = 16;
+
+    @Value("${rag.extraction.max-ranges-in-flight:4}")
+    private int maxRangesInFlight = 4;
+
+    public PdfExtractionService(@Qualifier("pdfExtractionExecutor") Executor pdfExtractionExecutor) {
+        this.pdfExtractionExecutor = pdfExtractionExecutor;
+    }
+
     public ExtractedContent extractText(MultipartFile file) {
         // Handle empty files gracefully
         if (file.isEmpty() || file.getSize() == 0) {
@@ -34,53 +61,161 @@ public class PdfExtractionService {
         String fileName = file.getOriginalFilename();
 
         // Check if it's a PDF file
-        if (contentType != null && contentType.equals("application/pdf") ||
-                (fileName != null && fileName.toLowerCase().endsWith(".pdf"))) {
-            return extractFromPdf(file);
+        if (isPdf(contentType, fileName)) {
+            try {
+                return extractFromPdf(new RandomAccessReadBuffer(file.getInputStream()), fileName);
+            } catch (IOException e) {
+                log.error("Failed to extract text from PDF: {}", fileName, e);
+                throw new PdfExtractionException("Failed to extract text from PDF: " + e.getMessage());
+            }
         }
 
         // For other text-based files, read as plain text
-        return extractAsPlainText(file);
+        try {
+            return extractAsPlainText(file.getBytes(), fileName);
+        } catch (IOException e) {
+            log.error("Failed to read file as text: {}", fileName, e);
+            throw new PdfExtractionException("Failed to read file: " + e.getMessage());
+        }
     }
 
-    private ExtractedContent extractFromPdf(MultipartFile file) {
-        try {
-            byte[] bytes = file.getBytes();
-            try (PDDocument document = Loader.loadPDF(bytes)) {
-                PDFTextStripper stripper = new PDFTextStripper();
-                String text = stripper.getText(document).trim();
-                int pageCount = document.getNumberOfPages();
-
-                log.info("Extracted {} characters from {} ({} pages)",
-                        text.length(), file.getOriginalFilename(), pageCount);
-
-                return ExtractedContent.builder()
-                        .text(text)
-                        .pageCount(pageCount)
-                        .build();
+    // Streams a spooled upload from disk one page at a time; returns the page count, or null for plain text
+    public Integer extractPages(SpooledUpload upload, String fileName, String contentType, PageTextConsumer consumer) {
+        if (upload.size() == 0) {
+            log.info("Empty file received: {}", fileName);
+            return null;
+        }
+
+        if (isPdf(contentType, fileName)) {
+            try {
+                int pageCount;
+                try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(upload.path().toFile()))) {
+                    pageCount = document.getNumberOfPages();
+                    if (pageCount < parallelPageThreshold) {
+                        long characters = extractRange(document, 1, pageCount, consumer);
+                        log.info("Extracted {} characters from {} ({} pages)", characters, fileName, pageCount);
+                        return pageCount;
+                    }
+                }
+
+                // The handle that counted the pages is closed first; every range opens its own
+                long characters = extractRangesInParallel(upload, fileName, pageCount, consumer);
+                log.info("Extracted {} characters from {} ({} pages)", characters, fileName, pageCount);
+                return pageCount;
+            } catch (IOException e) {
+                log.error("Failed to extract text from PDF: {}", fileName, e);
+                throw new PdfExtractionException("Failed to extract text from PDF: " + e.getMessage());
             }
+        }
+
+        try {
+            ExtractedContent content = extractAsPlainText(Files.readAllBytes(upload.path()), fileName);
+            consumer.accept(1, content.getText());
+            return content.getPageCount();
         } catch (IOException e) {
-            log.error("Failed to extract text from PDF: {}", file.getOriginalFilename(), e);
-            throw new PdfExtractionException("Failed to extract text from PDF: " + e.getMessage());
+            log.error("Failed to read file as text: {}", fileName, e);
+            throw new PdfExtractionException("Failed to read file: " + e.getMessage());
         }
     }
 
-    private ExtractedContent extractAsPlainText(MultipartFile file) {
+    // Each range opens its own PDDocument over the spooled file, since a PDDocument is not thread-safe.
+    // Only a window of ranges is in flight, so finished ranges wait for at most that many predecessors.
+    private long extractRangesInParallel(SpooledUpload upload, String fileName, int pageCount,
+                                         PageTextConsumer consumer) {
+        Deque<PageRange> inFlight = new ArrayDeque<>();
+        int nextPage = 1;
+        long characters = 0;
+
         try {
-            String text = new String(file.getBytes(), StandardCharsets.UTF_8).trim();
+            while (nextPage <= pageCount || !inFlight.isEmpty()) {
+                while (nextPage <= pageCount && inFlight.size() < maxRangesInFlight) {
+                    int firstPage = nextPage;
+                    int lastPage = Math.min(firstPage + pagesPerRange - 1, pageCount);
+                    inFlight.add(new PageRange(firstPage, CompletableFuture.supplyAsync(
+                            () -> extractRange(upload, fileName, firstPage, lastPage), pdfExtractionExecutor)));
+                    nextPage = lastPage + 1;
+                }
 
-            log.info("Extracted {} characters from {}", text.length(), file.getOriginalFilename());
+                PageRange range = inFlight.poll();
+                List<String> pages = range.pages().join();
+                for (int i = 0; i < pages.size(); i++) {
+                    characters += pages.get(i).length();
+                    consumer.accept(range.firstPage() + i, pages.get(i));
+                }
+            }
+        } catch (CompletionException e) {
+            inFlight.forEach(range -> range.pages().cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new PdfExtractionException("Failed to extract text from PDF: " + e.getMessage(), e);
+        }
+        return characters;
+    }
+
+    private List<String> extractRange(SpooledUpload upload, String fileName, int firstPage, int lastPage) {
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(upload.path().toFile()))) {
+            List<String> pages = new ArrayList<>(lastPage - firstPage + 1);
+            extractRange(document, firstPage, lastPage, (pageNumber, text) -> pages.add(text));
+            return pages;
+        } catch (IOException e) {
+            log.error("Failed to extract pages {}-{} from PDF: {}", firstPage, lastPage, fileName, e);
+            throw new PdfExtractionException("Failed to extract text from PDF: " + e.getMessage(), e);
+        }
+    }
+
+    private long extractRange(PDDocument document, int firstPage, int lastPage,
+                              PageTextConsumer consumer) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        long characters = 0;
+        for (int page = firstPage; page <= lastPage; page++) {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            String text = stripper.getText(document);
+            characters += text.length();
+            consumer.accept(page, text);
+        }
+        return characters;
+    }
+
+    private record PageRange(int firstPage, CompletableFuture<List<String>> pages) {}
+
+    private boolean isPdf(String contentType, String fileName) {
+        return contentType != null && contentType.equals("application/pdf") ||
+                (fileName != null && fileName.toLowerCase().endsWith(".pdf"));
+    }
+
+    private ExtractedContent extractFromPdf(RandomAccessRead source, String fileName) throws IOException {
+        try (PDDocument document = Loader.loadPDF(source)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            String text = stripper.getText(document).trim();
+            int pageCount = document.getNumberOfPages();
+
+            log.info("Extracted {} characters from {} ({} pages)", text.length(), fileName, pageCount);
 
             return ExtractedContent.builder()
                     .text(text)
-                    .pageCount(null)
+                    .pageCount(pageCount)
                     .build();
-        } catch (IOException e) {
-            log.error("Failed to read file as text: {}", file.getOriginalFilename(), e);
-            throw new PdfExtractionException("Failed to read file: " + e.getMessage());
         }
     }
 
+    private ExtractedContent extractAsPlainText(byte[] bytes, String fileName) {
+        String text = new String(bytes, StandardCharsets.UTF_8).trim();
+
+        log.info("Extracted {} characters from {}", text.length(), fileName);
+
+        return ExtractedContent.builder()
+                .text(text)
+                .pageCount(null)
+                .build();
+    }
+
+    @FunctionalInterface
+    public interface PageTextConsumer {
+        void accept(int pageNumber, String text);
+    }
+
     @Data
     @Builder
     @AllArgsConstructor
@@ -24,6 +24,7 @@ public class RagService {
 
     private final VectorStore vectorStore;
     private final ChatClient.Builder chatClientBuilder;
+    private final ResourceLimits resourceLimits;
 
     @Value("${rag.similarity.threshold:0.75}")
     private double similarityThreshold;
@@ -59,7 +60,8 @@ public class RagService {
                 .withSimilarityThreshold(similarityThreshold)
                 .withFilterExpression(filterExpression);
 
-        List<Document> relevantDocs = vectorStore.similaritySearch(searchRequest);
+        List<Document> relevantDocs = resourceLimits.call(ResourceLimits.Resource.EMBEDDING,
+                () -> vectorStore.similaritySearch(searchRequest));
 
         if (relevantDocs.isEmpty()) {
             return buildNoResultsResponse(request.getQuery());
@@ -102,11 +104,11 @@ public class RagService {
 
         String systemPrompt = String.format(SYSTEM_PROMPT, context);
 
-        return chatClient.prompt()
+        return resourceLimits.call(ResourceLimits.Resource.CHAT, () -> chatClient.prompt()
                 .system(systemPrompt)
                 .user(query)
                 .call()
-                .content();
+                .content());
     }
 
     private List<EvidenceItem> buildEvidence(List<Document> documents) {
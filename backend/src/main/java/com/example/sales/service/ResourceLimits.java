@@ -0,0 +1,51 @@
+package com.example.sales.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// Caps concurrent calls to the OpenAI APIs. With virtual threads, pool sizes no longer bound how many
+// callers reach them at once, so these permits do. The database needs no permit: every JDBC caller, on
+// the request path, in the outbox relay or in ingest, already waits for one of Hikari's connections.
+@Component
+public class ResourceLimits {
+
+    public enum Resource {
+        EMBEDDING,
+        CHAT
+    }
+
+    private final Map<Resource, Semaphore> permits = new EnumMap<>(Resource.class);
+
+    public ResourceLimits(@Value("${resources.embedding.max-concurrent:8}") int embedding,
+                          @Value("${resources.chat.max-concurrent:4}") int chat) {
+        permits.put(Resource.EMBEDDING, new Semaphore(embedding, true));
+        permits.put(Resource.CHAT, new Semaphore(chat, true));
+    }
+
+    public <T> T call(Resource resource, Supplier<T> work) {
+        Semaphore semaphore = permits.get(resource);
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + resource + " capacity", e);
+        }
+        try {
+            return work.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public void run(Resource resource, Runnable work) {
+        call(resource, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
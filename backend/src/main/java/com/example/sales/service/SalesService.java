@@ -4,15 +4,28 @@ import com.example.sales.model.dto.*;
 import com.example.sales.model.entity.Deal;
 import com.example.sales.model.entity.Document;
 import com.example.sales.model.entity.User;
+import com.example.sales.repository.DealBulkLoader;
 import com.example.sales.repository.DealRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -24,39 +37,88 @@ public class SalesService {
     private final ProbabilityCalculationService probabilityCalculationService;
     private final NbaGenerationService nbaGenerationService;
     private final DealRepository dealRepository;
-    private final DocumentProcessingService documentProcessingService;
+    private final DocumentUploadService documentUploadService;
+    private final DealBulkLoader dealBulkLoader;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${sales.import.batch-size:500}")
+    private int importBatchSize;
 
     @Transactional
     public AnalyzeResponse analyze(List<MultipartFile> files, User user) {
-        List<FileInfo> fileInfos = new ArrayList<>();
+        return analyze(files, user, false);
+    }
+
+    @Transactional
+    public AnalyzeResponse analyze(List<MultipartFile> files, User user, boolean bulkLoad) {
         List<DealAnalysisResponse> dealResponses = new ArrayList<>();
-        List<Deal> allDeals = new ArrayList<>();
+        AnalyzeResponse response = analyzeFiles(files, user, bulkLoad, dealResponses::add, false);
+        response.setDeals(dealResponses);
+        return response;
+    }
+
+    // Hands each deal's analysis to dealConsumer once its batch has committed; the response carries only files and
+    // summary. No transaction is open while dealConsumer runs, so a slow reader holds no connection and a later
+    // failure cannot roll back deals already handed out. Each CSV is validated in full before its first batch.
+    public AnalyzeResponse analyze(List<MultipartFile> files, User user, boolean bulkLoad,
+                                   Consumer<DealAnalysisResponse> dealConsumer) {
+        return analyzeFiles(files, user, bulkLoad, dealConsumer, true);
+    }
+
+    private AnalyzeResponse analyzeFiles(List<MultipartFile> files, User user, boolean bulkLoad,
+                                         Consumer<DealAnalysisResponse> dealConsumer, boolean commitPerBatch) {
+        List<FileInfo> fileInfos = new ArrayList<>();
+        SummaryAccumulator summary = new SummaryAccumulator();
+        Consumer<DealAnalysisResponse> dealResponses = deal -> {
+            summary.add(deal);
+            dealConsumer.accept(deal);
+        };
+        int savedDealCount = 0;
 
         for (MultipartFile file : files) {
             try {
-                fileService.validateFile(file);
+                // Detect the type once; every later decision reads it from the descriptor
+                UploadDescriptor upload = fileService.describe(file);
+                fileService.validate(upload);
 
                 FileInfo fileInfo = FileInfo.builder()
-                        .fileName(file.getOriginalFilename())
-                        .fileType(fileService.getFileType(file))
-                        .fileSize(file.getSize())
+                        .fileName(upload.fileName())
+                        .fileType(upload.fileType())
+                        .fileSize(upload.size())
                         .status("PROCESSED")
                         .build();
                 fileInfos.add(fileInfo);
 
-                // Parse CSV files and extract deals
-                if (fileService.isCsvFile(file)) {
-                    List<Deal> parsedDeals = csvParsingService.parseCsvFile(file, user);
-                    allDeals.addAll(parsedDeals);
+                // Stream CSV rows and persist deals batch by batch
+                if (upload.isCsv()) {
+                    if (commitPerBatch) {
+                        csvParsingService.validateCsvFile(file, user, importBatchSize);
+                    }
+                    if (bulkLoad) {
+                        BulkImport result = commitPerBatch
+                                ? bulkLoadPerBatch(file, user, dealResponses)
+                                : bulkLoadAndAnalyze(file, user, dealResponses);
+                        fileInfo.setRowsPerSecond(Math.round(result.load().rowsPerSecond() * 10.0) / 10.0);
+                        savedDealCount += result.rows();
+                    } else if (commitPerBatch) {
+                        savedDealCount += csvParsingService.streamCsvFile(file, user, importBatchSize,
+                                batch -> transactionTemplate.execute(status -> persistBatch(batch, user))
+                                        .forEach(dealResponses));
+                    } else {
+                        savedDealCount += csvParsingService.streamCsvFile(file, user, importBatchSize,
+                                batch -> persistAndAnalyze(batch, user, dealResponses));
+                    }
                 }
 
                 // Process PDF files for RAG
-                if (fileService.isPdfFile(file)) {
-                    Document document = documentProcessingService.createDocument(file, user, null);
-                    documentProcessingService.processDocumentAsync(document.getId(), file, user);
-                    // Update status to indicate async processing
-                    fileInfos.get(fileInfos.size() - 1).setStatus("PROCESSING");
-                    log.info("Started async processing for PDF: {}", file.getOriginalFilename());
+                if (upload.isPdf()) {
+                    Document document = documentUploadService.submit(file, upload, user, null);
+                    if (document.getSourceDocument() == null) {
+                        // Update status to indicate queued processing
+                        fileInfo.setStatus("PROCESSING");
+                        log.info("Queued processing for PDF: {}", file.getOriginalFilename());
+                    }
                 }
 
             } catch (Exception e) {
@@ -72,25 +134,160 @@ public class SalesService {
             }
         }
 
-        // Save all parsed deals to database
-        List<Deal> savedDeals = dealRepository.saveAll(allDeals);
-        log.info("Saved {} deals for user {}", savedDeals.size(), user.getEmail());
-
-        // Calculate probability and generate NBA for each deal
-        for (Deal deal : savedDeals) {
-            DealAnalysisResponse response = convertToDealAnalysisResponse(deal);
-            dealResponses.add(response);
-        }
-
-        AnalysisSummary summary = calculateSummary(dealResponses);
+        log.info("Saved {} deals for user {}", savedDealCount, user.getEmail());
 
         return AnalyzeResponse.builder()
                 .files(fileInfos)
-                .deals(dealResponses)
-                .summary(summary)
+                .summary(summary.toSummary())
                 .build();
     }
 
+    private void persistAndAnalyze(List<Deal> batch, User user, Consumer<DealAnalysisResponse> dealResponses) {
+        persistBatch(batch, user).forEach(dealResponses);
+    }
+
+    private List<DealAnalysisResponse> persistBatch(List<Deal> batch, User user) {
+        AnalyzedBatch analyzed = analyzeBatch(batch, user);
+
+        // Re-uploaded deals update the existing (user_id, deal_id) row instead of inserting a duplicate
+        if (!analyzed.changedDeals().isEmpty()) {
+            dealRepository.upsertAll(analyzed.changedDeals());
+        }
+        return analyzed.responses();
+    }
+
+    // Rows whose fingerprint matches the stored deal, scored today, reuse its analysis and are not written again.
+    // Both import modes go through here so they skip the same rows.
+    private AnalyzedBatch analyzeBatch(List<Deal> batch, User user) {
+        Map<String, DealRepository.DealSnapshot> storedDeals = new HashMap<>();
+        List<String> dealIds = batch.stream().map(Deal::getDealId).toList();
+        for (DealRepository.DealSnapshot snapshot : dealRepository.findSnapshots(user, dealIds)) {
+            storedDeals.put(snapshot.getDealId(), snapshot);
+        }
+
+        LocalDate today = LocalDate.now();
+        List<Deal> changedDeals = new ArrayList<>();
+        List<DealAnalysisResponse> batchResponses = new ArrayList<>(batch.size());
+        for (Deal deal : batch) {
+            DealAnalysisResponse analysis = findUnchangedAnalysis(deal, storedDeals.get(deal.getDealId()), today);
+            if (analysis == null) {
+                // Calculate probability and generate NBA for new, changed or stale deals
+                analysis = convertToDealAnalysisResponse(deal);
+                deal.setAnalysisResult(writeAnalysis(analysis));
+                deal.setAnalyzedOn(today);
+                changedDeals.add(deal);
+            }
+            batchResponses.add(analysis);
+        }
+        log.debug("Analyzed batch of {} deals, {} unchanged", batch.size(), batch.size() - changedDeals.size());
+        return new AnalyzedBatch(batchResponses, changedDeals);
+    }
+
+    // Recency and next-meeting factors and action deadlines are computed against the current date,
+    // so an analysis from an earlier day is re-scored even when the row itself is unchanged
+    private DealAnalysisResponse findUnchangedAnalysis(Deal deal, DealRepository.DealSnapshot stored, LocalDate today) {
+        if (stored == null || stored.getContentHash() == null || stored.getAnalysisResult() == null
+                || !stored.getContentHash().equals(deal.getContentHash())
+                || !today.equals(stored.getAnalyzedOn())) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(stored.getAnalysisResult(), DealAnalysisResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Discarding unreadable stored analysis for deal {}", deal.getDealId(), e);
+            return null;
+        }
+    }
+
+    private String writeAnalysis(DealAnalysisResponse analysis) {
+        try {
+            return objectMapper.writeValueAsString(analysis);
+        } catch (JsonProcessingException e) {
+            // The deal is still saved; it is simply re-analyzed on the next import
+            log.warn("Failed to serialize analysis for deal {}", analysis.getDealId(), e);
+            return null;
+        }
+    }
+
+    @Async("analyzeJobExecutor")
+    public void runAnalyzeJob(AnalyzeJob job, User user) {
+        job.markStarted();
+        List<FileInfo> fileInfos = new ArrayList<>();
+        List<DealAnalysisResponse> dealResponses = new ArrayList<>();
+
+        try {
+            for (AnalyzeJob.SpooledCsv csv : job.getFiles()) {
+                try (InputStream input = job.track(Files.newInputStream(csv.path()))) {
+                    // Each batch commits on its own; invalid rows are counted and skipped instead of failing the job
+                    csvParsingService.streamCsv(input, csv.fileName(), user, importBatchSize, batch -> {
+                        transactionTemplate.executeWithoutResult(
+                                status -> persistAndAnalyze(batch, user, dealResponses::add));
+                        job.recordProcessed(batch.size());
+                    }, job::recordFailed);
+                }
+
+                fileInfos.add(FileInfo.builder()
+                        .fileName(csv.fileName())
+                        .fileType("CSV")
+                        .fileSize(csv.size())
+                        .status("PROCESSED")
+                        .build());
+            }
+
+            job.complete(AnalyzeResponse.builder()
+                    .files(fileInfos)
+                    .deals(dealResponses)
+                    .summary(calculateSummary(dealResponses))
+                    .build());
+            log.info("Analyze job {} imported {} deals, {} rows failed",
+                    job.getId(), job.getRowsProcessed(), job.getRowsFailed());
+
+        } catch (Exception e) {
+            log.error("Analyze job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            job.deleteSpooledFiles();
+        }
+    }
+
+    private BulkImport bulkLoadAndAnalyze(MultipartFile file, User user,
+                                          Consumer<DealAnalysisResponse> dealResponses) {
+        // COPY every changed row into a staging table, then merge into deals with a single statement
+        try (DealBulkLoader.Session session = dealBulkLoader.open()) {
+            int rows = csvParsingService.streamCsvFile(file, user, importBatchSize, batch -> {
+                AnalyzedBatch analyzed = analyzeBatch(batch, user);
+                if (!analyzed.changedDeals().isEmpty()) {
+                    session.copy(analyzed.changedDeals());
+                }
+                analyzed.responses().forEach(dealResponses);
+            });
+            return new BulkImport(rows, session.finish());
+        }
+    }
+
+    // COPY and merge batch by batch, each in its own transaction, for callers that hand out deals as they commit
+    private BulkImport bulkLoadPerBatch(MultipartFile file, User user, Consumer<DealAnalysisResponse> dealResponses) {
+        long startNanos = System.nanoTime();
+        AtomicInteger merged = new AtomicInteger();
+        int rows = csvParsingService.streamCsvFile(file, user, importBatchSize, batch ->
+                transactionTemplate.execute(status -> {
+                    try (DealBulkLoader.Session session = dealBulkLoader.open()) {
+                        AnalyzedBatch analyzed = analyzeBatch(batch, user);
+                        if (!analyzed.changedDeals().isEmpty()) {
+                            session.copy(analyzed.changedDeals());
+                        }
+                        merged.addAndGet(session.finish().mergedRows());
+                        return analyzed.responses();
+                    }
+                }).forEach(dealResponses));
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return new BulkImport(rows, new DealBulkLoader.BulkLoadResult(rows, merged.get(), seconds));
+    }
+
+    private record AnalyzedBatch(List<DealAnalysisResponse> responses, List<Deal> changedDeals) {}
+
+    private record BulkImport(int rows, DealBulkLoader.BulkLoadResult load) {}
+
     private DealAnalysisResponse convertToDealAnalysisResponse(Deal deal) {
         ProbabilityResult probability = probabilityCalculationService.calculateProbability(deal);
         List<NextBestAction> actions = nbaGenerationService.generateActions(deal);
@@ -139,28 +336,42 @@ public class SalesService {
     }
 
     private AnalysisSummary calculateSummary(List<DealAnalysisResponse> deals) {
-        if (deals.isEmpty()) {
-            return AnalysisSummary.builder()
-                    .totalDeals(0)
-                    .avgProbability(0.0)
-                    .highPriorityActions(0)
-                    .build();
+        SummaryAccumulator summary = new SummaryAccumulator();
+        deals.forEach(summary::add);
+        return summary.toSummary();
+    }
+
+    // Builds the summary incrementally so streamed analyses do not have to be kept around
+    private static class SummaryAccumulator {
+
+        private int totalDeals;
+        private long successRateSum;
+        private int highPriorityCount;
+
+        void add(DealAnalysisResponse deal) {
+            totalDeals++;
+            successRateSum += deal.getProbability().getSuccessRate();
+            highPriorityCount += (int) deal.getNextBestActions().stream()
+                    .filter(a -> a.getPriority() == 1)
+                    .count();
         }
 
-        double avgProb = deals.stream()
-                .mapToInt(d -> d.getProbability().getSuccessRate())
-                .average()
-                .orElse(0.0);
+        AnalysisSummary toSummary() {
+            if (totalDeals == 0) {
+                return AnalysisSummary.builder()
+                        .totalDeals(0)
+                        .avgProbability(0.0)
+                        .highPriorityActions(0)
+                        .build();
+            }
 
-        int highPriorityCount = (int) deals.stream()
-                .flatMap(d -> d.getNextBestActions().stream())
-                .filter(a -> a.getPriority() == 1)
-                .count();
+            double avgProb = (double) successRateSum / totalDeals;
 
-        return AnalysisSummary.builder()
-                .totalDeals(deals.size())
-                .avgProbability(Math.round(avgProb * 10.0) / 10.0)
-                .highPriorityActions(highPriorityCount)
-                .build();
+            return AnalysisSummary.builder()
+                    .totalDeals(totalDeals)
+                    .avgProbability(Math.round(avgProb * 10.0) / 10.0)
+                    .highPriorityActions(highPriorityCount)
+                    .build();
+        }
     }
 }
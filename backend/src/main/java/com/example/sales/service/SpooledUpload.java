@@ -0,0 +1,7 @@
+package com.example.sales.service;
+
+import java.nio.file.Path;
+
+// Handle to an upload spooled to local disk, addressed by its SHA-256 content hash
+public record SpooledUpload(String contentHash, Path path, long size) {
+}
@@ -3,22 +3,32 @@ package com.example.sales.service;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class TextChunkingService {
 
-    @Value("${rag.chunk.size:800}")
-    private int chunkSize;
+    // First guess at how much text to tokenize to see past one window; grows when it falls short
+    private static final int PROBE_CHARS_PER_TOKEN = 8;
+    // Without whitespace after a letter or digit in a probe, the last tokens may still merge with what follows
+    private static final int UNSETTLED_TAIL_TOKENS = 16;
 
-    @Value("${rag.chunk.overlap:100}")
-    private int chunkOverlap;
+    private final Cl100kTokenizer tokenizer;
+
+    @Value("${rag.chunk.size-tokens:200}")
+    private int chunkTokens = 200;
+
+    @Value("${rag.chunk.overlap-tokens:25}")
+    private int overlapTokens = 25;
 
     public List<ChunkInfo> chunkText(String text, String documentName) {
         List<ChunkInfo> chunks = new ArrayList<>();
@@ -27,96 +37,223 @@ public class TextChunkingService {
             return chunks;
         }
 
-        String cleanedText = cleanText(text);
+        PageChunker chunker = openChunker(documentName, chunks::add);
+        chunker.addPage(null, text);
+        chunker.finish();
+        return chunks;
+    }
+
+    // Chunks text as it arrives page by page. Each page is cut as soon as it is added, so the chunker holds
+    // one page plus the text carried over from earlier pages; emitted views keep their page's copy alive.
+    public PageChunker openChunker(String documentName, Consumer<ChunkInfo> sink) {
+        return new PageChunker(documentName, sink);
+    }
 
-        if (cleanedText.isBlank()) {
-            return chunks;
+    private int findSentenceBoundary(CharSequence text, int searchStart, int end) {
+        for (int i = end; i > searchStart; i--) {
+            char c = text.charAt(i - 1);
+            if (c == '.' || c == '!' || c == '?' || c == '\n') {
+                return i;
+            }
         }
+        // No sentence boundary found, try word boundary
+        for (int i = end; i > searchStart; i--) {
+            if (Character.isWhitespace(text.charAt(i - 1))) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    // Tokens of a probe that text appended after it cannot change. BPE merges stay inside cl100k's
+    // pre-tokenized pieces, but a piece can run on past whitespace: punctuation takes the line breaks
+    // after it (".\n\n") and whitespace runs grow. A letter or digit piece always ends where whitespace
+    // starts, so only tokens ending at the last such point are final.
+    int settledTokens(String probe, int[] ends, boolean complete) {
+        if (complete) {
+            return ends.length;
+        }
+        int boundary = probe.length() - 1;
+        while (boundary > 0 && !(Character.isWhitespace(probe.charAt(boundary))
+                && Character.isLetterOrDigit(probe.codePointBefore(boundary)))) {
+            boundary--;
+        }
+        if (boundary <= 0) {
+            return Math.max(ends.length - UNSETTLED_TAIL_TOKENS, 0);
+        }
+        int settled = 0;
+        while (settled < ends.length && ends[settled] <= boundary) {
+            settled++;
+        }
+        return settled;
+    }
+
+    public class PageChunker {
+
+        private final String documentName;
+        private final Consumer<ChunkInfo> sink;
+        private final StringBuilder buffer = new StringBuilder();
+        private final List<PageMark> pageMarks = new ArrayList<>();
+        private final TextNormalizer normalizer = new TextNormalizer();
+        // Document offset of buffer[0]; windows before it have already been emitted
+        private int bufferOffset;
+        private int start;
+        private int chunkIndex;
+        private int probeChars = chunkTokens * PROBE_CHARS_PER_TOKEN;
 
-        int start = 0;
-        int chunkIndex = 0;
-        int previousStart = -1;
+        private PageChunker(String documentName, Consumer<ChunkInfo> sink) {
+            this.documentName = documentName;
+            this.sink = sink;
+        }
 
-        while (start < cleanedText.length()) {
-            // Prevent infinite loop
-            if (start == previousStart) {
-                break;
+        public void addPage(Integer pageNumber, String text) {
+            if (text == null) {
+                return;
+            }
+            // Pages are normalized straight into the buffer and trimmed individually, so keep a line break
+            // where they meet and take it back if the page turns out empty
+            int mark = buffer.length();
+            if (bufferOffset + mark > 0) {
+                buffer.append('\n');
             }
-            previousStart = start;
+            int pageStart = bufferOffset + buffer.length();
+            if (normalizer.appendNormalized(text, buffer) == 0) {
+                buffer.setLength(mark);
+                return;
+            }
+            pageMarks.add(new PageMark(pageStart, pageNumber));
+
+            cutWindows(false);
+            compact();
+        }
+
+        public int finish() {
+            cutWindows(true);
+            buffer.setLength(0);
+            pageMarks.clear();
+
+            log.info("Created {} chunks from document: {}", chunkIndex, documentName);
+            return chunkIndex;
+        }
 
-            int end = Math.min(start + chunkSize, cleanedText.length());
+        // Cuts every window of chunkTokens tokens whose tokens are settled. Until complete, a window is
+        // only cut once settled text past its end has arrived, so page by page gives the same windows.
+        // The windows of one pass are views of a single copy of the buffer, so only the text carried over
+        // from the previous page is copied twice.
+        private void cutWindows(boolean complete) {
+            String segment = buffer.toString();
+            while (start < bufferOffset + segment.length()) {
+                int from = start - bufferOffset;
+                int to = Math.min(segment.length(), from + probeChars);
+                boolean probeComplete = complete && to == segment.length();
+                String probe = segment.substring(from, to);
+                int[] ends = tokenizer.tokenEnds(probe);
 
-            // Try to break at sentence boundary if not at end
-            if (end < cleanedText.length()) {
-                end = findSentenceBoundary(cleanedText, start, end);
+                if (settledTokens(probe, ends, probeComplete) <= chunkTokens) {
+                    if (probeComplete) {
+                        emit(segment, start, bufferOffset + to, ends);
+                        start = bufferOffset + to;
+                    } else if (to < segment.length()) {
+                        probeChars *= 2;
+                        continue;
+                    }
+                    return;
+                }
+
+                int limit = ends[chunkTokens - 1];
+                int end = findSentenceBoundary(probe, ends[Math.max(chunkTokens / 2, 1) - 1], limit);
+                emit(segment, start, start + end, ends);
+
+                // The next window starts overlapTokens tokens before this one ended
+                int windowTokens = 0;
+                while (windowTokens < ends.length && ends[windowTokens] <= end) {
+                    windowTokens++;
+                }
+                int next = windowTokens > overlapTokens ? ends[windowTokens - overlapTokens - 1] : end;
+                start += Math.max(next, 1);
+                probeChars = Math.max(limit * 2, chunkTokens);
             }
+        }
 
-            String chunkContent = cleanedText.substring(start, end).trim();
-
-            if (!chunkContent.isBlank()) {
-                chunks.add(ChunkInfo.builder()
-                        .content(chunkContent)
-                        .chunkIndex(chunkIndex)
-                        .startOffset(start)
-                        .endOffset(end)
-                        .tokenCount(estimateTokenCount(chunkContent))
-                        .build());
-                chunkIndex++;
+        // segment holds the buffer as of this pass, so buffer and segment indexes are the same. ends are
+        // the token ends of the probe that starts at from.
+        private void emit(String segment, int from, int to, int[] ends) {
+            int probeStart = from - bufferOffset;
+            int contentStart = probeStart;
+            int contentEnd = to - bufferOffset;
+            while (contentStart < contentEnd && segment.charAt(contentStart) <= ' ') {
+                contentStart++;
+            }
+            while (contentEnd > contentStart && segment.charAt(contentEnd - 1) <= ' ') {
+                contentEnd--;
             }
 
-            // If we're at the end, break
-            if (end >= cleanedText.length()) {
-                break;
+            TextSlice chunkContent = new TextSlice(segment, contentStart, contentEnd);
+            if (chunkContent.chars().allMatch(Character::isWhitespace)) {
+                return;
             }
 
-            // Move start with overlap, but ensure we make progress
-            int newStart = end - chunkOverlap;
-            start = Math.max(newStart, start + 1);
+            sink.accept(ChunkInfo.builder()
+                    .content(chunkContent)
+                    .chunkIndex(chunkIndex++)
+                    .startOffset(from)
+                    .endOffset(to)
+                    .tokenCount(tokensWithin(ends, contentStart - probeStart, contentEnd - probeStart))
+                    .pageNumber(pageAt(contentStart + bufferOffset))
+                    .pageEndNumber(pageAt(contentEnd - 1 + bufferOffset))
+                    .build());
         }
 
-        log.info("Created {} chunks from document: {}", chunks.size(), documentName);
-        return chunks;
-    }
-
-    private String cleanText(String text) {
-        return text
-                .replaceAll("\\r\\n", "\n")
-                .replaceAll("\\r", "\n")
-                .replaceAll("\\n{3,}", "\n\n")
-                .replaceAll("[ \\t]+", " ")
-                .trim();
-    }
+        // Probe tokens that overlap [from, to) of the probe, so the count needs no copy of the chunk
+        private int tokensWithin(int[] ends, int from, int to) {
+            int count = 0;
+            int tokenStart = 0;
+            for (int tokenEnd : ends) {
+                if (tokenStart >= to) {
+                    break;
+                }
+                if (tokenEnd > from) {
+                    count++;
+                }
+                tokenStart = tokenEnd;
+            }
+            return count;
+        }
 
-    private int findSentenceBoundary(String text, int start, int end) {
-        int searchStart = Math.max(start + chunkSize / 2, start);
-        for (int i = end; i > searchStart; i--) {
-            char c = text.charAt(i - 1);
-            if (c == '.' || c == '!' || c == '?' || c == '\n') {
-                return i;
+        private Integer pageAt(int offset) {
+            Integer page = null;
+            for (PageMark mark : pageMarks) {
+                if (mark.offset() > offset) {
+                    break;
+                }
+                page = mark.pageNumber();
             }
+            return page;
         }
-        // No sentence boundary found, try word boundary
-        for (int i = end; i > searchStart; i--) {
-            if (Character.isWhitespace(text.charAt(i - 1))) {
-                return i;
+
+        // Drops text and page marks that no future window can reach
+        private void compact() {
+            buffer.delete(0, start - bufferOffset);
+            bufferOffset = start;
+            while (pageMarks.size() > 1 && pageMarks.get(1).offset() <= start) {
+                pageMarks.remove(0);
             }
         }
-        return end;
     }
 
-    private int estimateTokenCount(String text) {
-        // Rough estimation: ~4 characters per token for English
-        return (int) Math.ceil(text.length() / 4.0);
-    }
+    private record PageMark(int offset, Integer pageNumber) {}
 
     @Data
     @Builder
     @AllArgsConstructor
     public static class ChunkInfo {
-        private String content;
+        // A view into the chunker's copy of its page; toString() copies it out when the chunk is stored
+        private CharSequence content;
         private int chunkIndex;
         private int startOffset;
         private int endOffset;
         private int tokenCount;
+        private Integer pageNumber;
+        private Integer pageEndNumber;
     }
 }
@@ -0,0 +1,68 @@
+package com.example.sales.service;
+
+// Same output as the replaceAll chain it replaced: CRLF and lone CR to LF, runs of 3+ LF to two,
+// runs of spaces and tabs to one space, then String.trim(). One scan into a scratch buffer that is
+// reused across calls, so an instance belongs to a single thread.
+public final class TextNormalizer {
+
+    private char[] scratch = new char[0];
+
+    public static String normalize(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        new TextNormalizer().appendNormalized(text, out);
+        return out.toString();
+    }
+
+    // Appends the normalized text to target and returns the number of chars appended
+    public int appendNormalized(CharSequence text, StringBuilder target) {
+        int length = text.length();
+        if (scratch.length < length) {
+            scratch = new char[Math.max(length, scratch.length * 2)];
+        }
+
+        char[] out = scratch;
+        int written = 0;
+        int newlineRun = 0;
+        boolean inHorizontalRun = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\r') {
+                if (i + 1 < length && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                c = '\n';
+            }
+
+            if (c == '\n') {
+                inHorizontalRun = false;
+                if (++newlineRun <= 2) {
+                    out[written++] = '\n';
+                }
+            } else if (c == ' ' || c == '\t') {
+                newlineRun = 0;
+                if (!inHorizontalRun) {
+                    inHorizontalRun = true;
+                    out[written++] = ' ';
+                }
+            } else {
+                newlineRun = 0;
+                inHorizontalRun = false;
+                out[written++] = c;
+            }
+        }
+
+        // String.trim() bounds: anything up to and including ' '
+        int start = 0;
+        while (start < written && out[start] <= ' ') {
+            start++;
+        }
+        int end = written;
+        while (end > start && out[end - 1] <= ' ') {
+            end--;
+        }
+
+        target.append(out, start, end - start);
+        return end - start;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.sales.service;
+
+import java.util.Objects;
+
+// A read-only range of a String that shares its chars instead of copying them. toString() makes the copy,
+// so call it only where the text has to leave the process, e.g. when a chunk row is written.
+public final class TextSlice implements CharSequence {
+
+    private final String text;
+    private final int start;
+    private final int end;
+
+    public TextSlice(String text, int start, int end) {
+        Objects.checkFromToIndex(start, end, text.length());
+        this.text = text;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length());
+        return text.charAt(start + index);
+    }
+
+    @Override
+    public TextSlice subSequence(int from, int to) {
+        Objects.checkFromToIndex(from, to, length());
+        return new TextSlice(text, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return text.substring(start, end);
+    }
+}
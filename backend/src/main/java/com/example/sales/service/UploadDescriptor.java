@@ -0,0 +1,19 @@
+package com.example.sales.service;
+
+// Everything the request and the document pipeline need to know about an upload, worked out in one read
+public record UploadDescriptor(
+        String fileName,
+        String mimeType,
+        String fileType,
+        long size,
+        String contentHash
+) {
+
+    public boolean isCsv() {
+        return "CSV".equals(fileType);
+    }
+
+    public boolean isPdf() {
+        return "PDF".equals(fileType);
+    }
+}
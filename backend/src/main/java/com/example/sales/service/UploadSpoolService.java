@@ -0,0 +1,154 @@
+package com.example.sales.service;
+
+import com.example.sales.repository.DocumentJobRepository;
+import com.example.sales.repository.DocumentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadSpoolService {
+
+    private final DocumentJobRepository documentJobRepository;
+    private final DocumentRepository documentRepository;
+
+    // Any node may claim a job, so with more than one node this must be a directory every node reads
+    @Value("${upload.spool.dir:${java.io.tmpdir}/dealbrain-spool}")
+    private Path spoolDir;
+
+    @Value("${upload.spool.retention-hours:24}")
+    private long retentionHours;
+
+    @PostConstruct
+    void checkSpoolDir() {
+        if (spoolDir == null || spoolDir.toString().isBlank()) {
+            throw new IllegalStateException(
+                    "upload.spool.dir (UPLOAD_SPOOL_DIR) must name a directory");
+        }
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Upload spool directory is not usable: " + spoolDir, e);
+        }
+        if (!Files.isWritable(spoolDir)) {
+            throw new IllegalStateException("Upload spool directory is not writable: " + spoolDir);
+        }
+        if (spoolDir.toAbsolutePath().startsWith(Path.of(System.getProperty("java.io.tmpdir")).toAbsolutePath())) {
+            log.warn("Upload spool directory {} is node-local; multi-node deployments must set UPLOAD_SPOOL_DIR "
+                    + "to shared storage", spoolDir);
+        }
+    }
+
+    // Copies the upload out of the request so async work does not depend on the multipart temp file
+    public SpooledUpload spool(MultipartFile file, UploadDescriptor upload) {
+        if (upload.contentHash() == null) {
+            throw new IllegalArgumentException("Upload has no content hash: " + upload.fileName());
+        }
+
+        Path target = spoolDir.resolve(upload.contentHash());
+        try {
+            if (Files.exists(target)) {
+                // Same bytes are already spooled; refresh the timestamp so the purge keeps them
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                return new SpooledUpload(upload.contentHash(), target, upload.size());
+            }
+
+            Files.createDirectories(spoolDir);
+            Path partial = Files.createTempFile(spoolDir, upload.contentHash(), ".part");
+            try (InputStream input = file.getInputStream()) {
+                Files.copy(input, partial, StandardCopyOption.REPLACE_EXISTING);
+                moveIntoPlace(partial, target);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        } catch (IOException e) {
+            log.error("Failed to spool upload: {}", upload.fileName(), e);
+            throw new UncheckedIOException("Failed to spool upload: " + upload.fileName(), e);
+        }
+
+        log.debug("Spooled {} ({} bytes) to {}", upload.fileName(), upload.size(), target);
+        return new SpooledUpload(upload.contentHash(), target, upload.size());
+    }
+
+    public SpooledUpload resolve(String contentHash, long size) {
+        return new SpooledUpload(contentHash, spoolDir.resolve(contentHash), size);
+    }
+
+    @Scheduled(fixedDelayString = "${upload.spool.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (!Files.isDirectory(spoolDir)) {
+            return;
+        }
+
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+        List<Path> expired = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    expired.add(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to purge upload spool {}", spoolDir, e);
+            return;
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        // Age alone is not enough: a queued or retrying job, or a failed document that resume would
+        // extract again, still reads these bytes however long ago they were spooled
+        Set<String> hashes = new HashSet<>();
+        expired.forEach(file -> hashes.add(file.getFileName().toString()));
+        Set<String> referenced = new HashSet<>(documentJobRepository.findUnfinishedContentHashes(hashes));
+        referenced.addAll(documentRepository.findResumableContentHashes(hashes));
+
+        int purged = 0;
+        for (Path file : expired) {
+            if (referenced.contains(file.getFileName().toString())) {
+                continue;
+            }
+            try {
+                if (Files.deleteIfExists(file)) {
+                    purged++;
+                }
+            } catch (IOException e) {
+                log.warn("Failed to purge spooled upload {}", file, e);
+            }
+        }
+
+        if (purged > 0) {
+            log.info("Purged {} expired spooled uploads", purged);
+        }
+    }
+
+    private void moveIntoPlace(Path partial, Path target) throws IOException {
+        try {
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
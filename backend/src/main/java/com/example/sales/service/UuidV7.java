@@ -0,0 +1,26 @@
+package com.example.sales.service;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+// RFC 9562 version 7 UUIDs: a 48-bit millisecond timestamp followed by random bits
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private UuidV7() {
+    }
+
+    public static UUID randomUuid() {
+        return fromTimestamp(System.currentTimeMillis());
+    }
+
+    static UUID fromTimestamp(long epochMillis) {
+        long randomA = RANDOM.nextInt(1 << 12);
+        long randomB = RANDOM.nextLong();
+
+        long mostSigBits = (epochMillis << 16) | 0x7000L | randomA;
+        long leastSigBits = (randomB & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
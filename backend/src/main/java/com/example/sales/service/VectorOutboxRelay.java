@@ -0,0 +1,73 @@
+package com.example.sales.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Drains the vector outbox in batches that mix chunks from every document waiting to be embedded.
+// Flushers on this and other nodes claim disjoint entries: SKIP LOCKED, then a claim window on available_at.
+@Component
+@Slf4j
+public class VectorOutboxRelay {
+
+    private final VectorOutboxService vectorOutboxService;
+    private final Executor ingestEmbedExecutor;
+    private final int concurrency;
+    private final int batchSize;
+
+    private final AtomicInteger flushers = new AtomicInteger();
+
+    public VectorOutboxRelay(VectorOutboxService vectorOutboxService,
+                             @Qualifier("ingestEmbedExecutor") Executor ingestEmbedExecutor,
+                             @Value("${rag.ingest.embed-concurrency:8}") int concurrency,
+                             @Value("${rag.outbox.batch-size:256}") int batchSize) {
+        this.vectorOutboxService = vectorOutboxService;
+        this.ingestEmbedExecutor = ingestEmbedExecutor;
+        this.concurrency = concurrency;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${rag.outbox.poll-interval-ms:500}")
+    public void relay() {
+        startFlusher();
+    }
+
+    // A full batch means more is waiting, so each one brings in another flusher until all slots are busy
+    void drain() {
+        try {
+            while (true) {
+                VectorOutboxService.FlushResult result = vectorOutboxService.flush(batchSize);
+                if (!result.documentIds().isEmpty()) {
+                    vectorOutboxService.completeDrained(result.documentIds());
+                }
+                if (result.entries() < batchSize) {
+                    return;
+                }
+                startFlusher();
+            }
+        } catch (RuntimeException e) {
+            log.error("Vector outbox flush failed", e);
+        } finally {
+            flushers.decrementAndGet();
+        }
+    }
+
+    private void startFlusher() {
+        if (flushers.incrementAndGet() > concurrency) {
+            flushers.decrementAndGet();
+            return;
+        }
+        try {
+            ingestEmbedExecutor.execute(this::drain);
+        } catch (TaskRejectedException e) {
+            flushers.decrementAndGet();
+            log.warn("Vector outbox flusher could not be started", e);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.sales.service;
+
+import com.example.sales.model.dto.DocumentProgressEvent;
+import com.example.sales.model.entity.Document;
+import com.example.sales.model.entity.DocumentChunk;
+import com.example.sales.model.entity.User;
+import com.example.sales.model.entity.VectorOutboxEntry;
+import com.example.sales.model.enums.ProcessingStatus;
+import com.example.sales.model.enums.VectorOutboxOperation;
+import com.example.sales.repository.DocumentChunkRepository;
+import com.example.sales.repository.DocumentRepository;
+import com.example.sales.repository.VectorOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// document_chunks is the source of truth; the vector store follows it through outbox entries written in
+// the same transaction as the chunk change and flushed by VectorOutboxRelay. Vector writes are keyed by
+// chunk id, so replaying an entry after a crash overwrites or deletes the same vector again.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorOutboxService {
+
+    private final VectorOutboxRepository vectorOutboxRepository;
+    private final DocumentChunkRepository documentChunkRepository;
+    private final DocumentRepository documentRepository;
+    private final EmbeddingService embeddingService;
+    private final DocumentProgressService documentProgressService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${rag.outbox.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${rag.outbox.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds = 30;
+
+    // Must outlast a batch's embedding calls, retries included
+    @Value("${rag.outbox.claim-seconds:300}")
+    private long claimSeconds = 300;
+
+    @Transactional
+    public List<DocumentChunk> saveChunks(Document document,
+                                          List<TextChunkingService.ChunkInfo> chunkInfos,
+                                          User user) {
+        List<DocumentChunk> chunks = new ArrayList<>();
+
+        for (TextChunkingService.ChunkInfo info : chunkInfos) {
+            DocumentChunk chunk = DocumentChunk.builder()
+                    .id(UuidV7.randomUuid().toString())
+                    .document(document)
+                    .user(user)
+                    .chunkIndex(info.getChunkIndex())
+                    .content(info.getContent().toString())
+                    .startOffset(info.getStartOffset())
+                    .endOffset(info.getEndOffset())
+                    .tokenCount(info.getTokenCount())
+                    .pageNumber(info.getPageNumber())
+                    .pageEndNumber(info.getPageEndNumber())
+                    .build();
+            chunks.add(chunk);
+        }
+
+        List<DocumentChunk> saved = documentChunkRepository.saveAll(chunks);
+        vectorOutboxRepository.saveAll(entries(saved.stream().map(DocumentChunk::getId).toList(),
+                document.getId(), VectorOutboxOperation.UPSERT));
+        return saved;
+    }
+
+    // Drops an earlier attempt's chunks; their vectors are removed by the relay
+    @Transactional
+    public int deleteChunks(Document document) {
+        List<String> chunkIds = documentChunkRepository.findChunkIdsByDocument(document);
+        if (chunkIds.isEmpty()) {
+            return 0;
+        }
+        vectorOutboxRepository.deleteUpserts(document.getId());
+        documentChunkRepository.deleteAllByIdInBatch(chunkIds);
+        vectorOutboxRepository.saveAll(entries(chunkIds, document.getId(), VectorOutboxOperation.DELETE));
+        return chunkIds.size();
+    }
+
+    // Gives every chunk that never reached the vector store a fresh entry, and un-parks the document's deletes
+    @Transactional
+    public int requeue(Document document) {
+        vectorOutboxRepository.deleteUpserts(document.getId());
+        vectorOutboxRepository.resetAttempts(document.getId(), LocalDateTime.now());
+        List<String> chunkIds = documentChunkRepository.findUnembeddedChunkIds(document);
+        vectorOutboxRepository.saveAll(entries(chunkIds, document.getId(), VectorOutboxOperation.UPSERT));
+        return chunkIds.size();
+    }
+
+    // Takes up to limit entries across documents and writes them to the vector store in one go. Three short
+    // transactions bracket the remote calls: one claims the entries, one commits what was written and one
+    // records the retries, so no connection or row lock is held while the embedding API (and its retry
+    // backoff) runs. A failed batch is retried document by document, so one bad chunk only holds back its
+    // own document; a document whose entries run out of attempts is failed.
+    public FlushResult flush(int limit) {
+        Claim claim = transactionTemplate.execute(status -> claim(limit));
+        if (claim.entries().isEmpty()) {
+            return new FlushResult(0, Set.of());
+        }
+
+        Map<Long, RuntimeException> failures = write(claim.writes());
+        List<DocumentWrite> written = claim.writes().stream()
+                .filter(write -> !failures.containsKey(write.documentId()))
+                .toList();
+        if (!written.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> commit(written));
+        }
+        if (!failures.isEmpty()) {
+            List<DocumentWrite> failed = claim.writes().stream()
+                    .filter(write -> failures.containsKey(write.documentId()))
+                    .toList();
+            // A failed write may still have stored some of its vectors
+            transactionTemplate.executeWithoutResult(status -> {
+                deleteOrphans(failed);
+                failed.forEach(write -> retry(write, failures.get(write.documentId())));
+            });
+        }
+        return new FlushResult(claim.entries().size(), claim.documentIds());
+    }
+
+    // Locks are released when this commits; pushing available_at past the claim window is what keeps other
+    // flushers off the entries until this one commits or retries them. A flusher that dies leaves them to
+    // be claimed again once the window ends.
+    private Claim claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<VectorOutboxEntry> entries = vectorOutboxRepository.lockPending(now, maxAttempts, limit);
+        if (entries.isEmpty()) {
+            return new Claim(List.of(), Set.of(), List.of());
+        }
+        entries.forEach(entry -> entry.setAvailableAt(now.plusSeconds(claimSeconds)));
+
+        // Entries come in id order, so the last one per chunk decides whether its vector should exist
+        Map<String, VectorOutboxEntry> latest = new LinkedHashMap<>();
+        Map<Long, List<VectorOutboxEntry>> entriesByDocument = new LinkedHashMap<>();
+        for (VectorOutboxEntry entry : entries) {
+            latest.put(entry.getChunkId(), entry);
+            entriesByDocument.computeIfAbsent(entry.getDocumentId(), id -> new ArrayList<>()).add(entry);
+        }
+        List<String> upserts = new ArrayList<>();
+        Map<Long, List<String>> deletesByDocument = new LinkedHashMap<>();
+        for (VectorOutboxEntry entry : latest.values()) {
+            if (entry.getOperation() == VectorOutboxOperation.UPSERT) {
+                upserts.add(entry.getChunkId());
+            } else {
+                deletesByDocument.computeIfAbsent(entry.getDocumentId(), id -> new ArrayList<>())
+                        .add(entry.getChunkId());
+            }
+        }
+
+        // Chunks deleted since their entry was written no longer exist and are skipped
+        List<DocumentChunk> chunks = upserts.isEmpty()
+                ? List.of()
+                : documentChunkRepository.findWithDocumentByIdIn(upserts);
+        Map<Long, List<DocumentChunk>> chunksByDocument = chunks.stream()
+                .collect(Collectors.groupingBy(chunk -> chunk.getDocument().getId(), LinkedHashMap::new,
+                        Collectors.toList()));
+
+        List<DocumentWrite> writes = new ArrayList<>(entriesByDocument.size());
+        entriesByDocument.forEach((documentId, documentEntries) -> {
+            List<DocumentChunk> documentChunks = chunksByDocument.getOrDefault(documentId, List.of());
+            writes.add(new DocumentWrite(documentId,
+                    documentChunks.isEmpty() ? null : documentChunks.get(0).getUser().getId(),
+                    toChunksWithMetadata(documentChunks),
+                    deletesByDocument.getOrDefault(documentId, List.of()),
+                    documentEntries.stream().map(VectorOutboxEntry::getId).toList()));
+        });
+        return new Claim(entries, entriesByDocument.keySet(), writes);
+    }
+
+    private Map<Long, RuntimeException> write(List<DocumentWrite> writes) {
+        try {
+            store(writes);
+            return Map.of();
+        } catch (RuntimeException e) {
+            if (writes.size() == 1) {
+                return Map.of(writes.get(0).documentId(), e);
+            }
+            log.warn("Vector outbox batch of {} documents failed, writing them one by one: {}",
+                    writes.size(), e.getMessage());
+        }
+
+        Map<Long, RuntimeException> failures = new LinkedHashMap<>();
+        for (DocumentWrite write : writes) {
+            try {
+                store(List.of(write));
+            } catch (RuntimeException e) {
+                failures.put(write.documentId(), e);
+            }
+        }
+        return failures;
+    }
+
+    private void store(List<DocumentWrite> writes) {
+        writes.stream()
+                .filter(write -> !write.upserts().isEmpty())
+                .collect(Collectors.groupingBy(DocumentWrite::userId, LinkedHashMap::new,
+                        Collectors.flatMapping(write -> write.upserts().stream(), Collectors.toList())))
+                .forEach((userId, userChunks) -> embeddingService.storeChunks(userChunks, userId));
+        List<String> deletes = writes.stream().flatMap(write -> write.deletes().stream()).toList();
+        if (!deletes.isEmpty()) {
+            embeddingService.deleteChunks(deletes);
+        }
+    }
+
+    private void commit(List<DocumentWrite> written) {
+        List<String> embedded = deleteOrphans(written);
+        if (!embedded.isEmpty()) {
+            documentChunkRepository.markEmbedded(embedded);
+        }
+        vectorOutboxRepository.deleteAllByIdInBatch(
+                written.stream().flatMap(write -> write.entryIds().stream()).toList());
+    }
+
+    // deleteChunks may have removed a chunk, and its claimed upsert entry, while this flush was writing the
+    // vector; another flusher could already have applied that delete. Checked after the write, any chunk
+    // gone by now gets a new delete entry, which runs after the write. Returns the upserted chunks that exist.
+    private List<String> deleteOrphans(List<DocumentWrite> writes) {
+        List<String> upserted = writes.stream()
+                .flatMap(write -> write.upserts().stream().map(EmbeddingService.ChunkWithMetadata::getId))
+                .toList();
+        if (upserted.isEmpty()) {
+            return upserted;
+        }
+        Set<String> existing = new HashSet<>(documentChunkRepository.findExistingIds(upserted));
+        for (DocumentWrite write : writes) {
+            List<String> orphans = write.upserts().stream()
+                    .map(EmbeddingService.ChunkWithMetadata::getId)
+                    .filter(chunkId -> !existing.contains(chunkId))
+                    .toList();
+            if (!orphans.isEmpty()) {
+                log.info("{} chunks of document {} were deleted while their vectors were written; "
+                        + "queueing their removal", orphans.size(), write.documentId());
+                vectorOutboxRepository.saveAll(entries(orphans, write.documentId(), VectorOutboxOperation.DELETE));
+            }
+        }
+        return upserted.stream().filter(existing::contains).toList();
+    }
+
+    // Runs in its own transaction after the flush committed. Either the relay or the processing run sees both
+    // the checkpoint and the drained outbox, whichever commits last, so a document cannot be left behind.
+    @Transactional
+    public void completeDrained(Collection<Long> documentIds) {
+        for (Long documentId : documentIds) {
+            boolean completed = documentRepository.completeIfDrained(documentId, LocalDateTime.now()) == 1;
+            Document document = documentRepository.findById(documentId).orElse(null);
+            if (document == null || document.getChunksPersistedAt() == null) {
+                continue;
+            }
+            if (completed) {
+                log.info("Document {} completed with {} chunks embedded", documentId, document.getTotalChunks());
+            }
+            if (completed || document.getProcessingStatus() == ProcessingStatus.PROCESSING) {
+                DocumentProgressEvent event = documentProgressService.snapshot(document);
+                event.setChunksEmbedded(documentChunkRepository.countByDocumentIdAndEmbeddedTrue(documentId));
+                documentProgressService.publish(document.getUser().getId(), event);
+            }
+        }
+    }
+
+    // Entries removed meanwhile, e.g. by a requeue, are simply not found
+    private void retry(DocumentWrite write, RuntimeException error) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean exhausted = false;
+        List<VectorOutboxEntry> entries = vectorOutboxRepository.findAllById(write.entryIds());
+        for (VectorOutboxEntry entry : entries) {
+            entry.setAttempts(entry.getAttempts() + 1);
+            entry.setAvailableAt(now.plusSeconds(retryBackoffSeconds * entry.getAttempts()));
+            entry.setLastError(error.getMessage());
+            exhausted |= entry.getAttempts() >= maxAttempts;
+        }
+        log.warn("Vector outbox write of {} entries for document {} failed, retrying: {}",
+                entries.size(), write.documentId(), error.getMessage());
+
+        Long documentId = write.documentId();
+        if (exhausted) {
+            documentRepository.findById(documentId)
+                    .filter(document -> document.getProcessingStatus() == ProcessingStatus.PROCESSING)
+                    .ifPresent(document -> {
+                        document.setProcessingStatus(ProcessingStatus.FAILED);
+                        document.setErrorMessage("Vector store write failed after " + maxAttempts
+                                + " attempts: " + error.getMessage());
+                        documentRepository.save(document);
+                        documentProgressService.publish(document.getUser().getId(),
+                                documentProgressService.snapshot(document));
+                        log.error("Document {} failed: vector store writes exhausted their attempts", documentId);
+                    });
+        }
+    }
+
+    private List<VectorOutboxEntry> entries(List<String> chunkIds, Long documentId, VectorOutboxOperation operation) {
+        return chunkIds.stream()
+                .map(chunkId -> VectorOutboxEntry.builder()
+                        .chunkId(chunkId)
+                        .documentId(documentId)
+                        .operation(operation)
+                        .build())
+                .toList();
+    }
+
+    private List<EmbeddingService.ChunkWithMetadata> toChunksWithMetadata(List<DocumentChunk> chunks) {
+        return chunks.stream()
+                .map(chunk -> EmbeddingService.ChunkWithMetadata.builder()
+                        .id(chunk.getId())
+                        .content(chunk.getContent())
+                        .documentId(chunk.getDocument().getId())
+                        .fileName(chunk.getDocument().getOriginalFileName())
+                        .chunkIndex(chunk.getChunkIndex())
+                        .pageNumber(chunk.getPageNumber())
+                        .pageEndNumber(chunk.getPageEndNumber())
+                        .build())
+                .toList();
+    }
+
+    public record FlushResult(int entries, Set<Long> documentIds) {}
+
+    private record Claim(List<VectorOutboxEntry> entries, Set<Long> documentIds, List<DocumentWrite> writes) {}
+
+    // One document's share of a claimed batch; userId is null when it has nothing to upsert
+    private record DocumentWrite(Long documentId, Long userId, List<EmbeddingService.ChunkWithMetadata> upserts,
+                                 List<String> deletes, List<Long> entryIds) {}
+}
@@ -0,0 +1,8 @@
+-- deals and documents used IDENTITY ids before they moved to pooled sequences, and ddl-auto creates the
+-- sequences starting at 1. Moves each sequence one allocation block (allocationSize 50) past max(id) when
+-- it is behind and never moves it back, so this runs on every start.
+SELECT setval('deals_seq', (SELECT max(id) FROM deals) + 50)
+WHERE (SELECT max(id) FROM deals) + 50 > (SELECT last_value FROM deals_seq);
+
+SELECT setval('documents_seq', (SELECT max(id) FROM documents) + 50)
+WHERE (SELECT max(id) FROM documents) + 50 > (SELECT last_value FROM documents_seq);
@@ -0,0 +1,12 @@
+-- Imports used to insert a new row for every upload, so older databases can hold several deals with the same
+-- (user_id, deal_id). ddl-auto then fails to add uk_deals_user_deal_id and the upserts' ON CONFLICT has no
+-- index to match. Keeps the latest row per key, moves documents linked to the others onto it, and creates
+-- the unique index under the constraint's name. A no-op once the index exists and the keys are unique.
+UPDATE documents doc SET deal_id = dup.keep_id
+FROM (SELECT id, max(id) OVER (PARTITION BY user_id, deal_id) AS keep_id FROM deals WHERE deal_id IS NOT NULL) dup
+WHERE doc.deal_id = dup.id AND dup.id <> dup.keep_id;
+
+DELETE FROM deals older USING deals newer
+WHERE newer.user_id = older.user_id AND newer.deal_id = older.deal_id AND newer.id > older.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_deals_user_deal_id ON deals (user_id, deal_id);
@@ -0,0 +1,190 @@
+package com.example.sales.config;
+
+import com.example.sales.model.entity.DocumentChunk;
+import com.example.sales.service.DocumentIngestPipeline;
+import com.example.sales.service.ResourceLimits;
+import com.example.sales.service.TextChunkingService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncConfigTest {
+
+    private static final int JOB_CONCURRENCY = 2;
+
+    @Test
+    @DisplayName("Should run ingest stages on virtual threads when they are enabled")
+    void ingestExecutorsUseVirtualThreads() throws Exception {
+        IngestExecutors executors = new IngestExecutors(true);
+        try {
+            assertThat(runsOnVirtualThread(executors.persist)).isTrue();
+            assertThat(runsOnVirtualThread(executors.embed)).isTrue();
+            assertThat(runsOnVirtualThread(executors.documents)).isFalse();
+        } finally {
+            executors.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep every executor on platform threads by default")
+    void executorsUsePlatformThreadsByDefault() throws Exception {
+        IngestExecutors executors = new IngestExecutors(false);
+        try {
+            assertThat(runsOnVirtualThread(executors.persist)).isFalse();
+            assertThat(runsOnVirtualThread(executors.embed)).isFalse();
+            assertThat(runsOnVirtualThread(executors.documents)).isFalse();
+        } finally {
+            executors.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("Throughput")
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    class Throughput {
+
+        private static final int DOCUMENTS = 24;
+        private static final int BATCHES_PER_DOCUMENT = 8;
+        private static final int BATCH_SIZE = 32;
+        private static final int DB_POOL_SIZE = 10;
+        private static final long PERSIST_MILLIS = 5;
+        private static final long EMBED_MILLIS = 40;
+
+        // Drives the configured executors with the default property values: document jobs on their pool,
+        // chunk batches through DocumentIngestPipeline onto ingestPersist, one embedding call per batch
+        // on ingestEmbed behind the EMBEDDING permit. JDBC and OpenAI are stood in for by blocking waits,
+        // the JDBC one behind a Hikari-sized semaphore.
+        @Test
+        @DisplayName("Compare ingest throughput on platform and virtual threads")
+        void compareThroughput() throws Exception {
+            for (int warmup = 0; warmup < 2; warmup++) {
+                ingest(false);
+                ingest(true);
+            }
+
+            double platformSeconds = ingest(false);
+            double virtualSeconds = ingest(true);
+
+            int batches = DOCUMENTS * BATCHES_PER_DOCUMENT;
+            System.out.printf("Platform threads: %,d batches in %.2fs (%,.0f batches/s)%n",
+                    batches, platformSeconds, batches / platformSeconds);
+            System.out.printf("Virtual threads:  %,d batches in %.2fs (%,.0f batches/s)%n",
+                    batches, virtualSeconds, batches / virtualSeconds);
+        }
+
+        private double ingest(boolean virtualThreads) throws Exception {
+            IngestExecutors executors = new IngestExecutors(virtualThreads);
+            ResourceLimits limits = new ResourceLimits(8, 4);
+            Semaphore connections = new Semaphore(DB_POOL_SIZE, true);
+            AtomicInteger persisted = new AtomicInteger();
+            AtomicInteger embedded = new AtomicInteger();
+            List<CompletableFuture<Void>> embeddings = Collections.synchronizedList(new ArrayList<>());
+
+            try {
+                DocumentIngestPipeline pipeline = new DocumentIngestPipeline(executors.persist, BATCH_SIZE, 4);
+                long start = System.nanoTime();
+
+                // Like the job worker, never hold more documents than the job pool runs
+                Semaphore jobSlots = new Semaphore(JOB_CONCURRENCY);
+                List<CompletableFuture<Integer>> documents = new ArrayList<>();
+                for (int d = 0; d < DOCUMENTS; d++) {
+                    jobSlots.acquire();
+                    documents.add(CompletableFuture.supplyAsync(() -> {
+                        try (DocumentIngestPipeline.Run run = pipeline.open(batch -> {
+                            blockOn(connections, PERSIST_MILLIS);
+                            persisted.addAndGet(batch.size());
+                            embeddings.add(CompletableFuture.runAsync(() -> limits.run(
+                                    ResourceLimits.Resource.EMBEDDING, () -> {
+                                        sleep(EMBED_MILLIS);
+                                        embedded.addAndGet(batch.size());
+                                    }), executors.embed));
+                            return Collections.<DocumentChunk>nCopies(batch.size(), null);
+                        })) {
+                            for (int i = 0; i < BATCHES_PER_DOCUMENT * BATCH_SIZE; i++) {
+                                run.accept(TextChunkingService.ChunkInfo.builder()
+                                        .content("chunk")
+                                        .chunkIndex(i)
+                                        .build());
+                            }
+                            return run.await();
+                        }
+                    }, executors.documents).whenComplete((stored, error) -> jobSlots.release()));
+                }
+
+                CompletableFuture.allOf(documents.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+                CompletableFuture.allOf(embeddings.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+                int chunks = DOCUMENTS * BATCHES_PER_DOCUMENT * BATCH_SIZE;
+                assertThat(persisted.get()).isEqualTo(chunks);
+                assertThat(embedded.get()).isEqualTo(chunks);
+                return seconds;
+            } finally {
+                executors.close();
+            }
+        }
+
+        private void blockOn(Semaphore connections, long millis) {
+            connections.acquireUninterruptibly();
+            try {
+                sleep(millis);
+            } finally {
+                connections.release();
+            }
+        }
+
+        private void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private boolean runsOnVirtualThread(Executor executor) throws Exception {
+        return CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), executor)
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    // The executors as the application context builds them, with the default concurrency properties
+    private static class IngestExecutors {
+
+        private final Executor documents;
+        private final Executor persist;
+        private final Executor embed;
+
+        IngestExecutors(boolean virtualThreads) {
+            AsyncConfig config = new AsyncConfig();
+            ReflectionTestUtils.setField(config, "virtualThreads", virtualThreads);
+            documents = config.documentProcessingExecutor(JOB_CONCURRENCY);
+            persist = config.ingestPersistExecutor(2);
+            embed = config.ingestEmbedExecutor(8);
+        }
+
+        void close() throws Exception {
+            for (Executor executor : List.of(documents, persist, embed)) {
+                if (executor instanceof DisposableBean bean) {
+                    bean.destroy();
+                } else if (executor instanceof AutoCloseable closeable) {
+                    closeable.close();
+                }
+            }
+        }
+    }
+}
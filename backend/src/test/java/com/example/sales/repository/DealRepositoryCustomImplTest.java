@@ -0,0 +1,190 @@
+package com.example.sales.repository;
+
+import com.example.sales.model.entity.Deal;
+import com.example.sales.model.entity.User;
+import com.example.sales.model.enums.BudgetStatus;
+import com.example.sales.model.enums.DealStage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DealRepositoryCustomImplTest {
+
+    private static final Pattern INSERT_COLUMNS = Pattern.compile("INSERT INTO deals \\(([^)]*)\\) VALUES ");
+    private static final Pattern UPDATE_SET = Pattern.compile("(\\w+) = EXCLUDED\\.(\\w+)");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private DealRepositoryCustomImpl repository;
+    private final List<String> statements = new ArrayList<>();
+    private final List<Map<Integer, Object>> bindings = new ArrayList<>();
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        repository = new DealRepositoryCustomImpl(jdbcTemplate);
+        testUser = User.builder().id(7L).email("test@example.com").build();
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).thenAnswer(invocation -> {
+            Map<Integer, Object> bound = new HashMap<>();
+            invocation.<PreparedStatementSetter>getArgument(1).setValues(recordingStatement(bound));
+            statements.add(invocation.getArgument(0));
+            bindings.add(bound);
+            return bound.size();
+        });
+    }
+
+    @Test
+    @DisplayName("upsertAll - should bind one value per placeholder, in column order")
+    void upsertAll_AlignsPlaceholdersWithColumns() {
+        Deal first = deal("DEAL-001", "Samsung", testUser);
+        first.setNotes("Technical review scheduled");
+        first.setContentHash("hash-1");
+        Deal second = deal("DEAL-002", "LG", testUser);
+
+        repository.upsertAll(List.of(first, second));
+
+        assertThat(statements).hasSize(1);
+        String sql = statements.get(0);
+        List<String> columns = insertColumns(sql);
+        assertThat(columns.get(0)).isEqualTo("id");
+        List<String> bound = columns.subList(1, columns.size());
+        // id comes from nextval, every other column is a placeholder
+        assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(2L * bound.size());
+        assertThat(bindings.get(0)).hasSize(2 * bound.size());
+
+        assertThat(valueOf(bound, 0, "deal_id")).isEqualTo("DEAL-001");
+        assertThat(valueOf(bound, 0, "company_name")).isEqualTo("Samsung");
+        assertThat(valueOf(bound, 0, "deal_stage")).isEqualTo("PROPOSAL");
+        assertThat(valueOf(bound, 0, "deal_value")).isEqualTo(new BigDecimal("500000"));
+        assertThat(valueOf(bound, 0, "budget_status")).isEqualTo("APPROVED");
+        assertThat(valueOf(bound, 0, "last_contact")).isEqualTo(LocalDate.of(2026, 1, 10));
+        assertThat(valueOf(bound, 0, "notes")).isEqualTo("Technical review scheduled");
+        assertThat(valueOf(bound, 0, "content_hash")).isEqualTo("hash-1");
+        assertThat(valueOf(bound, 0, "user_id")).isEqualTo(7L);
+        assertThat(valueOf(bound, 0, "created_at")).isNotNull().isEqualTo(valueOf(bound, 0, "updated_at"));
+        assertThat(valueOf(bound, 1, "deal_id")).isEqualTo("DEAL-002");
+        assertThat(valueOf(bound, 1, "company_name")).isEqualTo("LG");
+        assertThat(valueOf(bound, 1, "notes")).isNull();
+    }
+
+    @Test
+    @DisplayName("upsertAll - should keep only the last row per (user_id, deal_id) in one call")
+    void upsertAll_DedupesWithinCall() {
+        User otherUser = User.builder().id(8L).email("other@example.com").build();
+
+        repository.upsertAll(List.of(
+                deal("DEAL-001", "Samsung", testUser),
+                deal("DEAL-001", "Samsung Electronics", testUser),
+                deal("DEAL-001", "Samsung", otherUser)));
+
+        List<String> columns = insertColumns(statements.get(0));
+        List<String> bound = columns.subList(1, columns.size());
+        assertThat(bindings.get(0)).hasSize(2 * bound.size());
+        assertThat(valueOf(bound, 0, "company_name")).isEqualTo("Samsung Electronics");
+        assertThat(valueOf(bound, 0, "user_id")).isEqualTo(7L);
+        assertThat(valueOf(bound, 1, "company_name")).isEqualTo("Samsung");
+        assertThat(valueOf(bound, 1, "user_id")).isEqualTo(8L);
+    }
+
+    @Test
+    @DisplayName("upsertAll - should update every column except the key and created_at on conflict")
+    void upsertAll_UpdatesNonKeyColumnsOnConflict() {
+        repository.upsertAll(List.of(deal("DEAL-001", "Samsung", testUser)));
+
+        String sql = statements.get(0);
+        assertThat(sql).contains(" ON CONFLICT (user_id, deal_id) DO UPDATE SET ");
+        List<String> updated = new ArrayList<>();
+        Matcher matcher = UPDATE_SET.matcher(sql.substring(sql.indexOf("DO UPDATE SET")));
+        while (matcher.find()) {
+            assertThat(matcher.group(1)).isEqualTo(matcher.group(2));
+            updated.add(matcher.group(1));
+        }
+
+        List<String> expected = new ArrayList<>(insertColumns(sql));
+        expected.removeAll(List.of("id", "deal_id", "user_id", "created_at"));
+        assertThat(updated).containsExactlyElementsOf(expected);
+        assertThat(updated).contains("content_hash", "analysis_result", "analyzed_on", "updated_at");
+    }
+
+    @Test
+    @DisplayName("upsertAll - should split large imports into statements of at most 1000 rows")
+    void upsertAll_SplitsLargeImports() {
+        List<Deal> deals = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) {
+            deals.add(deal(String.format("DEAL-%04d", i), "Company" + i, testUser));
+        }
+
+        int affected = repository.upsertAll(deals);
+
+        int columns = insertColumns(statements.get(0)).size() - 1;
+        assertThat(statements).hasSize(2);
+        assertThat(bindings).extracting(Map::size).containsExactly(1_000 * columns, 500 * columns);
+        assertThat(affected).isEqualTo(1_500 * columns);
+        assertThat(valueOf(insertColumns(statements.get(1)).subList(1, columns + 1), bindings.get(1), 0, "deal_id"))
+                .isEqualTo("DEAL-1000");
+    }
+
+    private Object valueOf(List<String> columns, int row, String column) {
+        return valueOf(columns, bindings.get(0), row, column);
+    }
+
+    private Object valueOf(List<String> columns, Map<Integer, Object> bound, int row, String column) {
+        return bound.get(row * columns.size() + columns.indexOf(column) + 1);
+    }
+
+    private List<String> insertColumns(String sql) {
+        Matcher matcher = INSERT_COLUMNS.matcher(sql);
+        assertThat(matcher.find()).isTrue();
+        return Arrays.stream(matcher.group(1).split(",")).map(String::trim).toList();
+    }
+
+    // Records every set* call by parameter index
+    private PreparedStatement recordingStatement(Map<Integer, Object> bound) {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer index) {
+                        bound.put(index, args[1]);
+                    }
+                    return null;
+                });
+    }
+
+    private Deal deal(String dealId, String companyName, User user) {
+        return Deal.builder()
+                .dealId(dealId)
+                .companyName(companyName)
+                .contactName("James Kim")
+                .contactEmail("james@samsung.com")
+                .dealStage(DealStage.PROPOSAL)
+                .dealValue(new BigDecimal("500000"))
+                .budgetStatus(BudgetStatus.APPROVED)
+                .lastContact(LocalDate.of(2026, 1, 10))
+                .user(user)
+                .build();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.AnalyzeJobNotFoundException;
+import com.example.sales.model.dto.AnalyzeResponse;
+import com.example.sales.model.entity.User;
+import com.example.sales.model.enums.ProcessingStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyzeJobServiceTest {
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private SalesService salesService;
+
+    @InjectMocks
+    private AnalyzeJobService analyzeJobService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(analyzeJobService, "jobRetentionMinutes", 60L);
+
+        testUser = User.builder()
+                .id(1L)
+                .email("test@example.com")
+                .name("Test User")
+                .build();
+    }
+
+    @Test
+    @DisplayName("submit - should spool CSV uploads and start the job in the background")
+    void submit_CsvFile_SpoolsAndStartsJob() throws Exception {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "Deal_ID\nDEAL-001".getBytes()
+        );
+        stubUpload("CSV");
+
+        // When
+        AnalyzeJob job = analyzeJobService.submit(List.of(csvFile), testUser);
+
+        // Then
+        ArgumentCaptor<AnalyzeJob> captor = ArgumentCaptor.forClass(AnalyzeJob.class);
+        verify(salesService).runAnalyzeJob(captor.capture(), eq(testUser));
+        assertThat(captor.getValue()).isSameAs(job);
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.PENDING);
+        assertThat(job.getFiles()).hasSize(1);
+        assertThat(Files.readString(job.getFiles().get(0).path())).isEqualTo("Deal_ID\nDEAL-001");
+        assertThat(analyzeJobService.getJob(job.getId(), testUser)).isSameAs(job);
+
+        job.deleteSpooledFiles();
+    }
+
+    @Test
+    @DisplayName("submit - should reject non-CSV files")
+    void submit_PdfFile_Rejected() {
+        // Given
+        MockMultipartFile pdfFile = new MockMultipartFile(
+                "file", "notes.pdf", "application/pdf", "%PDF-1.4".getBytes()
+        );
+        stubUpload("PDF");
+
+        // When & Then
+        assertThatThrownBy(() -> analyzeJobService.submit(List.of(pdfFile), testUser))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(salesService);
+    }
+
+    @Test
+    @DisplayName("submit - should clean up spooled files when the executor rejects the job")
+    void submit_Rejected_DeletesSpooledFiles() {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "Deal_ID\nDEAL-001".getBytes()
+        );
+        stubUpload("CSV");
+        ArgumentCaptor<AnalyzeJob> captor = ArgumentCaptor.forClass(AnalyzeJob.class);
+        doThrow(new TaskRejectedException("queue full")).when(salesService).runAnalyzeJob(captor.capture(), eq(testUser));
+
+        // When & Then
+        assertThatThrownBy(() -> analyzeJobService.submit(List.of(csvFile), testUser))
+                .isInstanceOf(TaskRejectedException.class);
+        AnalyzeJob job = captor.getValue();
+        assertThat(Files.exists(job.getFiles().get(0).path())).isFalse();
+        assertThatThrownBy(() -> analyzeJobService.getJob(job.getId(), testUser))
+                .isInstanceOf(AnalyzeJobNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("getJob - should not expose another user's job")
+    void getJob_OtherUser_NotFound() {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "Deal_ID\nDEAL-001".getBytes()
+        );
+        stubUpload("CSV");
+        AnalyzeJob job = analyzeJobService.submit(List.of(csvFile), testUser);
+        User otherUser = User.builder().id(2L).email("other@example.com").build();
+
+        // When & Then
+        assertThatThrownBy(() -> analyzeJobService.getJob(job.getId(), otherUser))
+                .isInstanceOf(AnalyzeJobNotFoundException.class);
+
+        job.deleteSpooledFiles();
+    }
+
+    @Test
+    @DisplayName("evictFinishedJobs - should keep only the most recently finished jobs")
+    void evictFinishedJobs_KeepsMostRecent() {
+        // Given
+        ReflectionTestUtils.setField(analyzeJobService, "maxRetainedJobs", 2);
+        stubUpload("CSV");
+        List<AnalyzeJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            MockMultipartFile csvFile = new MockMultipartFile(
+                    "file", "deals.csv", "text/csv", "Deal_ID\nDEAL-001".getBytes()
+            );
+            AnalyzeJob job = analyzeJobService.submit(List.of(csvFile), testUser);
+            job.deleteSpooledFiles();
+            jobs.add(job);
+        }
+        for (int i = 0; i < 3; i++) {
+            jobs.get(i).complete(AnalyzeResponse.builder().build());
+            ReflectionTestUtils.setField(jobs.get(i), "completedAt", LocalDateTime.now().minusMinutes(10 - i));
+        }
+
+        // When
+        analyzeJobService.evictFinishedJobs();
+
+        // Then
+        assertThatThrownBy(() -> analyzeJobService.getJob(jobs.get(0).getId(), testUser))
+                .isInstanceOf(AnalyzeJobNotFoundException.class);
+        assertThat(analyzeJobService.getJob(jobs.get(1).getId(), testUser)).isSameAs(jobs.get(1));
+        assertThat(analyzeJobService.getJob(jobs.get(2).getId(), testUser)).isSameAs(jobs.get(2));
+        // Still running, so never evicted
+        assertThat(analyzeJobService.getJob(jobs.get(3).getId(), testUser)).isSameAs(jobs.get(3));
+    }
+
+    private void stubUpload(String fileType) {
+        when(fileService.describe(any(MultipartFile.class))).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            return new UploadDescriptor(file.getOriginalFilename(), "text/csv", fileType, file.getSize(), "hash");
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.sales.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Cl100kTokenizerTest {
+
+    private final Cl100kTokenizer tokenizer = new Cl100kTokenizer();
+
+    @Test
+    @DisplayName("Should split text into cl100k tokens")
+    void shouldSplitIntoTokens() {
+        assertThat(tokenizer.tokenEnds("hello world")).hasSize(2);
+        assertThat(tokenizer.tokenEnds("")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should map token ends to char offsets")
+    void shouldMapTokenEnds() {
+        assertThat(tokenizer.tokenEnds("hello world")).containsExactly(5, 11);
+    }
+
+    @Test
+    @DisplayName("Should keep token ends on character boundaries for Hangul")
+    void shouldKeepHangulTokenEndsOnCharacters() {
+        String text = "서울 고객사와 분기 계약을 검토했습니다.";
+
+        int[] ends = tokenizer.tokenEnds(text);
+
+        assertThat(ends.length).isGreaterThan(text.length() / 4);
+        assertThat(ends).isSorted();
+        assertThat(ends[ends.length - 1]).isEqualTo(text.length());
+    }
+
+    @Test
+    @DisplayName("Should treat special token text as ordinary characters")
+    void shouldEncodeSpecialTokensAsText() {
+        String text = "see <|endoftext|> here";
+
+        int[] ends = tokenizer.tokenEnds(text);
+
+        assertThat(ends.length).isGreaterThan(3);
+        assertThat(ends[ends.length - 1]).isEqualTo(text.length());
+    }
+}
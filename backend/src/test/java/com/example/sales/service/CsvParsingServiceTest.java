@@ -11,9 +11,13 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -431,6 +435,182 @@ class CsvParsingServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Streaming Parsing")
+    class StreamingParsing {
+
+        @Test
+        @DisplayName("Should hand deals to the consumer in fixed-size batches")
+        void streamInBatches() {
+            String csvContent = """
+                Deal_ID,Company_Name,Contact_Name,Contact_Email,Deal_Stage,Deal_Value,Budget_Status
+                DEAL-001,Samsung,James Kim,james@samsung.com,QUALIFICATION,500000,APPROVED
+                DEAL-002,LG,Sarah Lee,sarah@lg.com,PROPOSAL,750000,UNDER_REVIEW
+                DEAL-003,Hyundai,Mike Park,mike@hyundai.com,NEGOTIATION,1000000,EXECUTED
+                DEAL-004,SK,Jin Choi,jin@sk.com,DISCOVERY,250000,NOT_CONFIRMED
+                DEAL-005,KT,Min Yoon,min@kt.com,CLOSED_WON,900000,APPROVED
+                """;
+
+            List<List<String>> batches = new ArrayList<>();
+
+            int count = service.streamCsvFile(createCsvFile(csvContent), testUser, 2,
+                    batch -> batches.add(batch.stream().map(Deal::getDealId).toList()));
+
+            assertThat(count).isEqualTo(5);
+            assertThat(batches).containsExactly(
+                    List.of("DEAL-001", "DEAL-002"),
+                    List.of("DEAL-003", "DEAL-004"),
+                    List.of("DEAL-005")
+            );
+        }
+
+        @Test
+        @DisplayName("Should report correct row numbers for invalid rows")
+        void reportRowNumbers() {
+            String csvContent = """
+                Deal_ID,Company_Name,Contact_Name,Contact_Email,Deal_Stage,Deal_Value,Budget_Status
+                DEAL-001,Samsung,James,james@test.com,QUALIFICATION,500000,APPROVED
+                DEAL-002,,James,james@test.com,QUALIFICATION,500000,APPROVED
+                DEAL-003,LG,Sarah,sarah@test.com,QUALIFICATION,500000,APPROVED
+                DEAL-004,Hyundai,Mike,mike@test.com,INVALID_STAGE,500000,APPROVED
+                """;
+
+            assertThatThrownBy(() -> service.streamCsvFile(createCsvFile(csvContent), testUser, 1, batch -> {}))
+                    .isInstanceOf(CsvValidationException.class)
+                    .hasMessageContaining("Row 3")
+                    .hasMessageContaining("Row 5")
+                    .satisfies(ex -> assertThat(((CsvValidationException) ex).getRowNumber()).isEqualTo(3));
+        }
+
+        @Test
+        @DisplayName("Should stop handing out batches after the first invalid row")
+        void stopBatchesAfterError() {
+            String csvContent = """
+                Deal_ID,Company_Name,Contact_Name,Contact_Email,Deal_Stage,Deal_Value,Budget_Status
+                DEAL-001,Samsung,James,james@test.com,QUALIFICATION,500000,APPROVED
+                DEAL-002,,James,james@test.com,QUALIFICATION,500000,APPROVED
+                DEAL-003,LG,Sarah,sarah@test.com,QUALIFICATION,500000,APPROVED
+                """;
+
+            List<String> streamedIds = new ArrayList<>();
+
+            assertThatThrownBy(() -> service.streamCsvFile(createCsvFile(csvContent), testUser, 1,
+                    batch -> batch.forEach(deal -> streamedIds.add(deal.getDealId()))))
+                    .isInstanceOf(CsvValidationException.class);
+
+            assertThat(streamedIds).containsExactly("DEAL-001");
+        }
+
+        @Test
+        @DisplayName("Should not call the consumer for a header-only file")
+        void headerOnly() {
+            String csvContent = "Deal_ID,Company_Name,Contact_Name,Contact_Email,Deal_Stage,Deal_Value,Budget_Status\n";
+
+            List<List<Deal>> batches = new ArrayList<>();
+
+            int count = service.streamCsvFile(createCsvFile(csvContent), testUser, 10, batches::add);
+
+            assertThat(count).isZero();
+            assertThat(batches).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should keep streaming valid rows and report invalid ones in lenient mode")
+        void lenientStreaming() {
+            String csvContent = """
+                Deal_ID,Company_Name,Contact_Name,Contact_Email,Deal_Stage,Deal_Value,Budget_Status
+                DEAL-001,Samsung,James,james@test.com,QUALIFICATION,500000,APPROVED
+                DEAL-002,,James,james@test.com,QUALIFICATION,500000,APPROVED
+                DEAL-003,LG,Sarah,sarah@test.com,QUALIFICATION,500000,APPROVED
+                """;
+
+            List<String> streamedIds = new ArrayList<>();
+            List<CsvValidationException.RowError> errors = new ArrayList<>();
+
+            service.streamCsv(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)), "deals.csv",
+                    testUser, 1, batch -> batch.forEach(deal -> streamedIds.add(deal.getDealId())), errors::addAll);
+
+            assertThat(streamedIds).containsExactly("DEAL-001", "DEAL-003");
+            assertThat(errors).extracting(CsvValidationException.RowError::rowNumber).containsExactly(3);
+        }
+    }
+
+    @Nested
+    @DisplayName("Parallel Mapping")
+    class ParallelMapping {
+
+        @Test
+        @DisplayName("Should build deals in file order when mapping in parallel")
+        void dealsInFileOrder() {
+            StringBuilder csvContent = new StringBuilder(
+                    "Deal_ID,Company_Name,Contact_Name,Contact_Email,Deal_Stage,Deal_Value,Budget_Status\n");
+            for (int i = 1; i <= 500; i++) {
+                csvContent.append(String.format("DEAL-%03d,Company%d,Contact%d,c%d@test.com,PROPOSAL,%d,APPROVED%n",
+                        i, i, i, i, i * 1000));
+            }
+            ReflectionTestUtils.setField(service, "parallelThreshold", 1);
+
+            List<Deal> deals = service.parseCsvFile(createCsvFile(csvContent.toString()), testUser);
+
+            assertThat(deals).hasSize(500);
+            for (int i = 0; i < deals.size(); i++) {
+                assertThat(deals.get(i).getDealId()).isEqualTo(String.format("DEAL-%03d", i + 1));
+            }
+        }
+
+        @Test
+        @DisplayName("Should report the same errors as the sequential mapping")
+        void sameErrorReport() {
+            StringBuilder csvContent = new StringBuilder(
+                    "Deal_ID,Company_Name,Contact_Name,Contact_Email,Deal_Stage,Deal_Value,Budget_Status\n");
+            for (int i = 1; i <= 300; i++) {
+                String stage = i % 7 == 0 ? "INVALID_STAGE" : "PROPOSAL";
+                String company = i % 11 == 0 ? "" : "Company" + i;
+                csvContent.append(String.format("DEAL-%03d,%s,Contact%d,c%d@test.com,%s,%d,APPROVED%n",
+                        i, company, i, i, stage, i * 1000));
+            }
+            String csv = csvContent.toString();
+
+            Throwable sequential = catchThrowable(() -> service.parseCsvFile(createCsvFile(csv), testUser));
+            ReflectionTestUtils.setField(service, "parallelThreshold", 1);
+            Throwable parallel = catchThrowable(() -> service.parseCsvFile(createCsvFile(csv), testUser));
+
+            assertThat(parallel).isInstanceOf(CsvValidationException.class);
+            assertThat(parallel.getMessage()).isEqualTo(sequential.getMessage());
+            assertThat(((CsvValidationException) parallel).getRowNumber()).isEqualTo(8);
+        }
+
+        @Test
+        @DisplayName("Should map streamed batches in parallel with the shipped threshold")
+        void streamedBatchesMatchSequential() {
+            StringBuilder csvContent = new StringBuilder(
+                    "Deal_ID,Company_Name,Contact_Name,Contact_Email,Deal_Stage,Deal_Value,Budget_Status\n");
+            for (int i = 1; i <= 1_200; i++) {
+                String stage = i % 97 == 0 ? "INVALID_STAGE" : "PROPOSAL";
+                csvContent.append(String.format("DEAL-%04d,Company%d,Contact%d,c%d@test.com,%s,%d,APPROVED%n",
+                        i, i, i, i, stage, i * 1000));
+            }
+            byte[] csv = csvContent.toString().getBytes(StandardCharsets.UTF_8);
+
+            List<String> parallelIds = new ArrayList<>();
+            List<CsvValidationException.RowError> parallelErrors = new ArrayList<>();
+            service.streamCsv(new ByteArrayInputStream(csv), "deals.csv", testUser, 500,
+                    batch -> batch.forEach(deal -> parallelIds.add(deal.getDealId())), parallelErrors::addAll);
+
+            ReflectionTestUtils.setField(service, "parallelThreshold", Integer.MAX_VALUE);
+            List<String> sequentialIds = new ArrayList<>();
+            List<CsvValidationException.RowError> sequentialErrors = new ArrayList<>();
+            service.streamCsv(new ByteArrayInputStream(csv), "deals.csv", testUser, 500,
+                    batch -> batch.forEach(deal -> sequentialIds.add(deal.getDealId())), sequentialErrors::addAll);
+
+            assertThat(parallelIds).hasSize(1_188).containsExactlyElementsOf(sequentialIds);
+            assertThat(parallelErrors).extracting(CsvValidationException.RowError::rowNumber)
+                    .containsExactly(98, 195, 292, 389, 486, 583, 680, 777, 874, 971, 1068, 1165)
+                    .containsExactlyElementsOf(sequentialErrors.stream()
+                            .map(CsvValidationException.RowError::rowNumber).toList());
+        }
+    }
+
     private MockMultipartFile createCsvFile(String content) {
         return new MockMultipartFile(
                 "file",
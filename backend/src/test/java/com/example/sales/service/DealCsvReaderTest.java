@@ -0,0 +1,226 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.CsvParsingException;
+import com.example.sales.model.dto.CsvDealRow;
+import com.opencsv.bean.CsvToBeanBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DealCsvReaderTest {
+
+    private static final String HEADER =
+            "Deal_ID,Company_Name,Contact_Name,Contact_Email,Contact_Title,Deal_Stage,Deal_Value,Product_Interest," +
+            "Pain_Points,Competition,Decision_Maker,Budget_Status,Sales_Rep,Region,Last_Contact,Next_Meeting,Notes";
+
+    @Nested
+    @DisplayName("Tokenizing")
+    class Tokenizing {
+
+        @Test
+        @DisplayName("Should bind columns by header name regardless of order and case")
+        void bindByHeaderName() throws IOException {
+            List<CsvDealRow> rows = readAll("""
+                deal_stage,DEAL_ID,Company_Name
+                QUALIFICATION,DEAL-001,Samsung
+                """);
+
+            assertThat(rows).hasSize(1);
+            assertThat(rows.get(0).getDealId()).isEqualTo("DEAL-001");
+            assertThat(rows.get(0).getDealStage()).isEqualTo("QUALIFICATION");
+            assertThat(rows.get(0).getCompanyName()).isEqualTo("Samsung");
+            assertThat(rows.get(0).getNotes()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should handle quoted fields with separators, escaped quotes and newlines")
+        void quotedFields() throws IOException {
+            List<CsvDealRow> rows = readAll("Deal_ID,Company_Name,Notes\r\n" +
+                    "DEAL-001,\"Samsung, Inc.\",\"He said \"\"yes\"\"\r\nthen left\"\r\n" +
+                    "DEAL-002,  \"LG\",\"Escaped \\\"quote\\\"\"\r\n");
+
+            assertThat(rows).hasSize(2);
+            assertThat(rows.get(0).getCompanyName()).isEqualTo("Samsung, Inc.");
+            assertThat(rows.get(0).getNotes()).isEqualTo("He said \"yes\"\nthen left");
+            assertThat(rows.get(1).getCompanyName()).isEqualTo("LG");
+            assertThat(rows.get(1).getNotes()).isEqualTo("Escaped \"quote\"");
+        }
+
+        @Test
+        @DisplayName("Should skip empty lines and a leading byte order mark")
+        void skipEmptyLinesAndBom() throws IOException {
+            List<CsvDealRow> rows = readAll("\uFEFFDeal_ID,Company_Name\n\nDEAL-001,Samsung\n\n\nDEAL-002,LG\n");
+
+            assertThat(rows).extracting(CsvDealRow::getDealId).containsExactly("DEAL-001", "DEAL-002");
+        }
+
+        @Test
+        @DisplayName("Should read empty fields as empty strings")
+        void emptyFields() throws IOException {
+            List<CsvDealRow> rows = readAll("Deal_ID,Company_Name,Notes\nDEAL-001,,\"\"\n");
+
+            assertThat(rows.get(0).getCompanyName()).isEmpty();
+            assertThat(rows.get(0).getNotes()).isEmpty();
+            assertThat(rows.get(0).getRegion()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should reject rows whose field count differs from the header")
+        void fieldCountMismatch() {
+            assertThatThrownBy(() -> readAll("Deal_ID,Company_Name\nDEAL-001,Samsung,extra\n"))
+                    .isInstanceOf(CsvParsingException.class)
+                    .hasMessageContaining("line 2");
+        }
+
+        @Test
+        @DisplayName("Should reject an unterminated quoted field")
+        void unterminatedQuote() {
+            assertThatThrownBy(() -> readAll("Deal_ID,Company_Name\nDEAL-001,\"Samsung\n"))
+                    .isInstanceOf(CsvParsingException.class)
+                    .hasMessageContaining("Unterminated");
+        }
+
+        @Test
+        @DisplayName("Should reject an empty file")
+        void emptyFile() {
+            assertThatThrownBy(() -> readAll(""))
+                    .isInstanceOf(CsvParsingException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Compatibility")
+    class Compatibility {
+
+        @Test
+        @DisplayName("Should read the same values as the CsvToBean binding")
+        void matchesCsvToBean() throws IOException {
+            String csv = generateCsv(200);
+
+            List<CsvDealRow> expected = readWithCsvToBean(csv);
+            List<CsvDealRow> actual = readAll(csv);
+
+            assertThat(actual).hasSameSizeAs(expected);
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(fields(actual.get(i))).isEqualTo(fields(expected.get(i)));
+            }
+        }
+
+        @Test
+        @DisplayName("Should leave columns missing from the header unset like CsvToBean")
+        void matchesCsvToBeanWithMissingColumns() throws IOException {
+            String csv = "Deal_ID,Company_Name,Notes\nDEAL-001,Samsung ,\nDEAL-002, LG,\"\"\n";
+
+            List<CsvDealRow> expected = readWithCsvToBean(csv);
+            List<CsvDealRow> actual = readAll(csv);
+
+            assertThat(actual).hasSameSizeAs(expected);
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(fields(actual.get(i))).isEqualTo(fields(expected.get(i)));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Throughput")
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    class Throughput {
+
+        @Test
+        @DisplayName("Compare throughput against the CsvToBean binding")
+        void compareThroughput() throws IOException {
+            String csv = generateCsv(200_000);
+
+            for (int warmup = 0; warmup < 3; warmup++) {
+                readWithCsvToBean(csv);
+                readAll(csv);
+            }
+
+            long start = System.nanoTime();
+            int beanRows = readWithCsvToBean(csv).size();
+            double beanSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            start = System.nanoTime();
+            int readerRows = countWithReusedRow(csv);
+            double readerSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            System.out.printf("CsvToBean:     %,d rows in %.2fs (%,.0f rows/s)%n",
+                    beanRows, beanSeconds, beanRows / beanSeconds);
+            System.out.printf("DealCsvReader: %,d rows in %.2fs (%,.0f rows/s)%n",
+                    readerRows, readerSeconds, readerRows / readerSeconds);
+
+            assertThat(readerRows).isEqualTo(beanRows);
+        }
+    }
+
+    private List<CsvDealRow> readAll(String csv) throws IOException {
+        List<CsvDealRow> rows = new ArrayList<>();
+        try (DealCsvReader reader = new DealCsvReader(new StringReader(csv))) {
+            CsvDealRow row = new CsvDealRow();
+            while (reader.next(row)) {
+                rows.add(row);
+                row = new CsvDealRow();
+            }
+        }
+        return rows;
+    }
+
+    private int countWithReusedRow(String csv) throws IOException {
+        int count = 0;
+        try (DealCsvReader reader = new DealCsvReader(new StringReader(csv))) {
+            CsvDealRow row = new CsvDealRow();
+            while (reader.next(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<CsvDealRow> readWithCsvToBean(String csv) {
+        return new CsvToBeanBuilder<CsvDealRow>(new StringReader(csv))
+                .withType(CsvDealRow.class)
+                .withIgnoreLeadingWhiteSpace(true)
+                .withIgnoreEmptyLine(true)
+                .build()
+                .parse();
+    }
+
+    private String generateCsv(int rows) {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        String[] stages = {"DISCOVERY", "QUALIFICATION", "PROPOSAL", "NEGOTIATION", "CLOSED_WON"};
+        for (int i = 0; i < rows; i++) {
+            csv.append("DEAL-").append(i).append(',')
+                    .append(i % 7 == 0 ? "  \"Company, " + i + "\"" : "Company " + i).append(',')
+                    .append("Contact ").append(i).append(',')
+                    .append("contact").append(i).append("@example.com,")
+                    .append(i % 3 == 0 ? "" : i % 3 == 1 ? " Manager " : "Manager").append(',')
+                    .append(stages[i % stages.length]).append(',')
+                    .append(100_000 + i * 10).append(',')
+                    .append("Enterprise AI,")
+                    .append(i % 5 == 0 ? "\"Data silos\nand slow reporting\"" : "Data silos").append(',')
+                    .append("Microsoft,CTO,APPROVED,John Smith,")
+                    .append(i % 6 == 0 ? "\"\"" : "Seoul").append(",2026-01-10,2026-01-20,")
+                    .append(i % 4 == 0 ? "\"Said \"\"call me\"\" next week\"" : "Follow up").append('\n');
+        }
+        return csv.toString();
+    }
+
+    // Raw values, so whitespace and empty versus unset cells count as differences
+    private List<String> fields(CsvDealRow row) {
+        return Arrays.asList(
+                row.getDealId(), row.getCompanyName(), row.getContactName(), row.getContactEmail(),
+                row.getContactTitle(), row.getDealStage(), row.getDealValue(), row.getProductInterest(),
+                row.getPainPoints(), row.getCompetition(), row.getDecisionMaker(), row.getBudgetStatus(),
+                row.getSalesRep(), row.getRegion(), row.getLastContact(), row.getNextMeeting(), row.getNotes());
+    }
+}
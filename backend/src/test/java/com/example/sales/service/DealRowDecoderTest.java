@@ -0,0 +1,140 @@
+package com.example.sales.service;
+
+import com.example.sales.model.dto.CsvDealRow;
+import com.example.sales.model.enums.BudgetStatus;
+import com.example.sales.model.enums.DealStage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DealRowDecoderTest {
+
+    private final DealRowDecoder decoder = new DealRowDecoder();
+
+    @Nested
+    @DisplayName("Decimal Scanner")
+    class DecimalScanner {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"500000", " 500000 ", "$500,000", "500000.50", "₩1,000,000", ".5", "5.",
+                "-250", "1.2.3", "abc", ".", "", "12 345", "1e5"})
+        @DisplayName("Should match the regex-based BigDecimal parsing")
+        void matchesRegexParsing(String value) {
+            assertThat(DealRowDecoder.decodeDecimal(value)).isEqualTo(regexDecimal(value));
+        }
+    }
+
+    @Nested
+    @DisplayName("Date Scanner")
+    class DateScanner {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"2026-01-10", " 2026-01-10 ", "2026-02-30", "2024-02-30", "2026-04-31",
+                "2026-13-01", "2026-00-10", "2026-01-32", "01/10/2026", "2026-1-10", "20260-01-10",
+                "0000-01-01", "2026-01-10x", "2026/01/10", "+2026-01-10"})
+        @DisplayName("Should match the DateTimeFormatter parsing")
+        void matchesFormatterParsing(String value) {
+            assertThat(DealRowDecoder.decodeDate(value)).isEqualTo(formatterDate(value));
+        }
+    }
+
+    @Nested
+    @DisplayName("Row Decoding")
+    class RowDecoding {
+
+        @Test
+        @DisplayName("Should resolve enum aliases through the normalization tables")
+        void resolveAliases() {
+            DealRowDecoder.DecodedRow decoded = decoder.decode(validRow()
+                    .dealStage(" closed won ")
+                    .budgetStatus("Pending")
+                    .build(), null);
+
+            assertThat(decoded.isValid()).isTrue();
+            assertThat(decoded.deal().getDealStage()).isEqualTo(DealStage.CLOSED_WON);
+            assertThat(decoded.deal().getBudgetStatus()).isEqualTo(BudgetStatus.UNDER_REVIEW);
+        }
+
+        @Test
+        @DisplayName("Should report field errors in column order")
+        void reportErrorsInOrder() {
+            DealRowDecoder.DecodedRow decoded = decoder.decode(CsvDealRow.builder()
+                    .dealStage("UNKNOWN")
+                    .dealValue("n/a")
+                    .budgetStatus("MAYBE")
+                    .lastContact("yesterday")
+                    .build(), null);
+
+            assertThat(decoded.isValid()).isFalse();
+            assertThat(decoded.fieldErrors().keySet()).containsExactly(
+                    "Deal_ID", "Company_Name", "Contact_Name", "Contact_Email",
+                    "Deal_Stage", "Deal_Value", "Budget_Status", "Last_Contact");
+        }
+
+        @Test
+        @DisplayName("Should fingerprint normalized values so formatting-only changes keep the hash")
+        void fingerprintNormalizedValues() {
+            DealRowDecoder.DecodedRow plain = decoder.decode(validRow().build(), null);
+            DealRowDecoder.DecodedRow reformatted = decoder.decode(validRow()
+                    .companyName(" Samsung ")
+                    .dealStage("qualification")
+                    .dealValue("500,000.00")
+                    .build(), null);
+            DealRowDecoder.DecodedRow changed = decoder.decode(validRow()
+                    .dealValue("600000")
+                    .build(), null);
+
+            assertThat(plain.deal().getContentHash()).hasSize(64);
+            assertThat(reformatted.deal().getContentHash()).isEqualTo(plain.deal().getContentHash());
+            assertThat(changed.deal().getContentHash()).isNotEqualTo(plain.deal().getContentHash());
+        }
+
+        @Test
+        @DisplayName("Should trim text fields and map blanks to null")
+        void trimTextFields() {
+            DealRowDecoder.DecodedRow decoded = decoder.decode(validRow()
+                    .companyName("  Samsung  ")
+                    .notes("   ")
+                    .build(), null);
+
+            assertThat(decoded.deal().getCompanyName()).isEqualTo("Samsung");
+            assertThat(decoded.deal().getNotes()).isNull();
+        }
+    }
+
+    private CsvDealRow.CsvDealRowBuilder validRow() {
+        return CsvDealRow.builder()
+                .dealId("DEAL-001")
+                .companyName("Samsung")
+                .contactName("James Kim")
+                .contactEmail("james@samsung.com")
+                .dealStage("QUALIFICATION")
+                .dealValue("500000")
+                .budgetStatus("APPROVED");
+    }
+
+    private BigDecimal regexDecimal(String value) {
+        try {
+            return new BigDecimal(value.trim().replaceAll("[^\\d.]", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private LocalDate formatterDate(String value) {
+        try {
+            return LocalDate.parse(value.trim(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
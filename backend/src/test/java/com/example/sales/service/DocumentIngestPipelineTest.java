@@ -0,0 +1,122 @@
+package com.example.sales.service;
+
+import com.example.sales.model.entity.DocumentChunk;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocumentIngestPipelineTest {
+
+    @Test
+    @DisplayName("Should persist chunks in batches and report the stored count")
+    void shouldPersistInBatches() {
+        ExecutorService persistPool = Executors.newFixedThreadPool(2);
+        List<Integer> persistedBatchSizes = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> persistedIndexes = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            DocumentIngestPipeline pipeline = new DocumentIngestPipeline(persistPool, 3, 2);
+            DocumentIngestPipeline.Run run = pipeline.open(batch -> {
+                persistedBatchSizes.add(batch.size());
+                batch.forEach(info -> persistedIndexes.add(info.getChunkIndex()));
+                return batch.stream()
+                        .map(info -> DocumentChunk.builder().chunkIndex(info.getChunkIndex()).build())
+                        .toList();
+            });
+
+            IntStream.range(0, 8).forEach(i -> run.accept(chunk(i)));
+            int stored = run.await();
+
+            assertThat(stored).isEqualTo(8);
+            assertThat(persistedBatchSizes).containsExactlyInAnyOrder(3, 3, 2);
+            assertThat(persistedIndexes).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7);
+        } finally {
+            persistPool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should surface a failed persist batch to the caller")
+    void shouldSurfaceStageFailure() {
+        DocumentIngestPipeline pipeline = new DocumentIngestPipeline(Runnable::run, 2, 2);
+        DocumentIngestPipeline.Run run = pipeline.open(batch -> {
+            throw new IllegalStateException("database unavailable");
+        });
+
+        run.accept(chunk(0));
+
+        assertThatThrownBy(run::await)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("database unavailable");
+    }
+
+    @Test
+    @DisplayName("Should stop accepting chunks once a batch has failed")
+    void shouldStopAfterFailure() {
+        DocumentIngestPipeline pipeline = new DocumentIngestPipeline(Runnable::run, 1, 2);
+        DocumentIngestPipeline.Run run = pipeline.open(batch -> {
+            throw new IllegalStateException("database unavailable");
+        });
+
+        run.accept(chunk(0));
+
+        assertThatThrownBy(() -> run.accept(chunk(1)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("database unavailable");
+    }
+
+    @Test
+    @DisplayName("Should wait for batches still in flight before reporting a failure")
+    void shouldDrainInFlightBatchesBeforeFailing() {
+        ExecutorService persistPool = Executors.newFixedThreadPool(2);
+        AtomicBoolean slowBatchFinished = new AtomicBoolean();
+        List<Integer> persistedIndexes = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            DocumentIngestPipeline pipeline = new DocumentIngestPipeline(persistPool, 1, 2);
+            DocumentIngestPipeline.Run run = pipeline.open(batch -> {
+                int index = batch.get(0).getChunkIndex();
+                persistedIndexes.add(index);
+                if (index == 1) {
+                    throw new IllegalStateException("database unavailable");
+                }
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                slowBatchFinished.set(true);
+                return List.of(DocumentChunk.builder().chunkIndex(index).build());
+            });
+
+            run.accept(chunk(0));
+            run.accept(chunk(1));
+
+            assertThatThrownBy(() -> {
+                IntStream.range(2, 6).forEach(i -> run.accept(chunk(i)));
+                run.await();
+            }).isInstanceOf(IllegalStateException.class).hasMessage("database unavailable");
+            assertThat(slowBatchFinished).isTrue();
+            assertThat(persistedIndexes).doesNotContain(3, 4, 5);
+        } finally {
+            persistPool.shutdownNow();
+        }
+    }
+
+    private TextChunkingService.ChunkInfo chunk(int index) {
+        return TextChunkingService.ChunkInfo.builder()
+                .content("chunk " + index)
+                .chunkIndex(index)
+                .build();
+    }
+}
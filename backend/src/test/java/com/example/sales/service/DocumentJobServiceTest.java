@@ -0,0 +1,171 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.JobLeaseLostException;
+import com.example.sales.model.entity.Document;
+import com.example.sales.model.entity.DocumentJob;
+import com.example.sales.model.entity.User;
+import com.example.sales.model.enums.ProcessingStage;
+import com.example.sales.model.enums.ProcessingStatus;
+import com.example.sales.repository.DocumentJobRepository;
+import com.example.sales.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentJobServiceTest {
+
+    @Mock
+    private DocumentJobRepository documentJobRepository;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private DocumentProgressService documentProgressService;
+
+    @InjectMocks
+    private DocumentJobService documentJobService;
+
+    private Document document;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(documentJobService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(documentJobService, "leaseSeconds", 600L);
+        ReflectionTestUtils.setField(documentJobService, "retryBackoffSeconds", 30L);
+        document = Document.builder().id(10L).user(User.builder().id(1L).build()).processingStatus(ProcessingStatus.PROCESSING).build();
+    }
+
+    @Test
+    @DisplayName("claim - should lease locked jobs to the worker and count the attempt")
+    void claim_LeasesJobs() {
+        DocumentJob job = job(ProcessingStatus.PENDING, 0, null);
+        when(documentJobRepository.lockClaimable(any(LocalDateTime.class), eq(2))).thenReturn(List.of(job));
+
+        List<DocumentJob> claimed = documentJobService.claim("node-a", 2);
+
+        assertThat(claimed).containsExactly(job);
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.PROCESSING);
+        assertThat(job.getAttempts()).isEqualTo(1);
+        assertThat(job.getLeaseOwner()).isEqualTo("node-a");
+        assertThat(job.getLeaseExpiresAt()).isAfter(LocalDateTime.now().plusSeconds(590));
+    }
+
+    @Test
+    @DisplayName("claim - should fail an expired job that already used its last attempt")
+    void claim_FailsExhaustedExpiredJob() {
+        DocumentJob job = job(ProcessingStatus.PROCESSING, 3, "node-b");
+        when(documentJobRepository.lockClaimable(any(LocalDateTime.class), eq(1))).thenReturn(List.of(job));
+
+        List<DocumentJob> claimed = documentJobService.claim("node-a", 1);
+
+        assertThat(claimed).isEmpty();
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.FAILED);
+        assertThat(document.getProcessingStatus()).isEqualTo(ProcessingStatus.FAILED);
+        verify(documentRepository).save(document);
+        verify(documentProgressService).publish(eq(1L), argThat(event -> event.getStage() == ProcessingStage.FAILED));
+    }
+
+    @Test
+    @DisplayName("fail - should schedule a retry with backoff while attempts remain")
+    void fail_SchedulesRetry() {
+        DocumentJob job = job(ProcessingStatus.PROCESSING, 2, "node-a");
+        when(documentJobRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(job));
+
+        documentJobService.fail(1L, "node-a", new IllegalStateException("embedding API timed out"));
+
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.PENDING);
+        assertThat(job.getLeaseOwner()).isNull();
+        assertThat(job.getAvailableAt()).isAfter(LocalDateTime.now().plusSeconds(50));
+        assertThat(job.getLastError()).isEqualTo("embedding API timed out");
+        assertThat(document.getProcessingStatus()).isEqualTo(ProcessingStatus.PENDING);
+    }
+
+    @Test
+    @DisplayName("fail - should mark the job and document failed on the last attempt")
+    void fail_MarksFailedOnLastAttempt() {
+        DocumentJob job = job(ProcessingStatus.PROCESSING, 3, "node-a");
+        when(documentJobRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(job));
+
+        documentJobService.fail(1L, "node-a", new IllegalStateException("corrupt PDF"));
+
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.FAILED);
+        assertThat(document.getProcessingStatus()).isEqualTo(ProcessingStatus.FAILED);
+        assertThat(document.getErrorMessage()).isEqualTo("corrupt PDF");
+    }
+
+    @Test
+    @DisplayName("complete - should ignore a worker that lost its lease")
+    void complete_IgnoresLostLease() {
+        DocumentJob job = job(ProcessingStatus.PROCESSING, 1, "node-b");
+        when(documentJobRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(job));
+
+        documentJobService.complete(1L, "node-a");
+
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.PROCESSING);
+        assertThat(job.getLeaseOwner()).isEqualTo("node-b");
+    }
+
+    @Test
+    @DisplayName("complete - should release the lease and mark the job completed")
+    void complete_MarksCompleted() {
+        DocumentJob job = job(ProcessingStatus.PROCESSING, 1, "node-a");
+        when(documentJobRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(job));
+
+        documentJobService.complete(1L, "node-a");
+
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.COMPLETED);
+        assertThat(job.getLeaseOwner()).isNull();
+        verifyNoInteractions(documentRepository);
+    }
+
+    @Test
+    @DisplayName("whileHeld - should run the write while the worker still holds its attempt")
+    void whileHeld_RunsWorkForCurrentLease() {
+        DocumentJob job = job(ProcessingStatus.PROCESSING, 2, "node-a");
+        when(documentJobRepository.findHeldForShare(1L, "node-a", 2)).thenReturn(Optional.of(job));
+
+        int written = documentJobService.whileHeld(new DocumentJobService.Lease(1L, "node-a", 2), () -> 7);
+
+        assertThat(written).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("whileHeld - should refuse the write once the job was reclaimed")
+    void whileHeld_RejectsLostLease() {
+        when(documentJobRepository.findHeldForShare(1L, "node-a", 1)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> documentJobService.whileHeld(new DocumentJobService.Lease(1L, "node-a", 1), () -> {
+            throw new AssertionError("fenced work must not run");
+        })).isInstanceOf(JobLeaseLostException.class);
+    }
+
+    private DocumentJob job(ProcessingStatus status, int attempts, String owner) {
+        return DocumentJob.builder()
+                .id(1L)
+                .document(document)
+                .contentHash("hash")
+                .fileSize(100L)
+                .status(status)
+                .attempts(attempts)
+                .availableAt(LocalDateTime.now())
+                .leaseOwner(owner)
+                .build();
+    }
+}
@@ -1,13 +1,13 @@
 package com.example.sales.service;
 
+import com.example.sales.exception.JobLeaseLostException;
 import com.example.sales.model.entity.Document;
-import com.example.sales.model.entity.DocumentChunk;
 import com.example.sales.model.entity.User;
 import com.example.sales.model.enums.DocumentType;
 import com.example.sales.model.enums.ProcessingStatus;
 import com.example.sales.repository.DealRepository;
-import com.example.sales.repository.DocumentChunkRepository;
 import com.example.sales.repository.DocumentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -16,12 +16,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,18 +38,18 @@ class DocumentProcessingServiceTest {
     @Mock
     private TextChunkingService textChunkingService;
 
-    @Mock
-    private EmbeddingService embeddingService;
-
     @Mock
     private DocumentRepository documentRepository;
 
     @Mock
-    private DocumentChunkRepository documentChunkRepository;
+    private VectorOutboxService vectorOutboxService;
 
     @Mock
     private DealRepository dealRepository;
 
+    @Mock
+    private DocumentJobService documentJobService;
+
     private DocumentProcessingService documentProcessingService;
     private User testUser;
 
@@ -53,10 +58,12 @@ class DocumentProcessingServiceTest {
         documentProcessingService = new DocumentProcessingService(
                 pdfExtractionService,
                 textChunkingService,
-                embeddingService,
                 documentRepository,
-                documentChunkRepository,
-                dealRepository
+                dealRepository,
+                new DocumentIngestPipeline(Runnable::run, 32, 4),
+                new DocumentProgressService(mock(JdbcTemplate.class), new ObjectMapper().findAndRegisterModules()),
+                vectorOutboxService,
+                documentJobService
         );
 
         testUser = User.builder()
@@ -73,12 +80,7 @@ class DocumentProcessingServiceTest {
         @Test
         @DisplayName("Should create document with correct properties")
         void shouldCreateDocumentWithCorrectProperties() {
-            MockMultipartFile file = new MockMultipartFile(
-                    "file",
-                    "meeting_minutes.pdf",
-                    "application/pdf",
-                    "PDF content".getBytes()
-            );
+            UploadDescriptor file = upload("meeting_minutes.pdf", "PDF content");
 
             when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> {
                 Document doc = invocation.getArgument(0);
@@ -96,15 +98,26 @@ class DocumentProcessingServiceTest {
             assertThat(result.getUser()).isEqualTo(testUser);
         }
 
+        @Test
+        @DisplayName("Should create a completed alias that carries the source document's counts")
+        void shouldCreateCompletedAlias() {
+            UploadDescriptor file = upload("proposal_copy.pdf", "PDF content");
+            Document source = Document.builder().id(5L).totalPages(30).totalChunks(42).build();
+
+            when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            Document result = documentProcessingService.createDocument(file, testUser, null, source);
+
+            assertThat(result.getProcessingStatus()).isEqualTo(ProcessingStatus.COMPLETED);
+            assertThat(result.getSourceDocument()).isSameAs(source);
+            assertThat(result.getTotalPages()).isEqualTo(30);
+            assertThat(result.getTotalChunks()).isEqualTo(42);
+        }
+
         @Test
         @DisplayName("Should generate unique file name")
         void shouldGenerateUniqueFileName() {
-            MockMultipartFile file = new MockMultipartFile(
-                    "file",
-                    "test.pdf",
-                    "application/pdf",
-                    "content".getBytes()
-            );
+            UploadDescriptor file = upload("test.pdf", "content");
 
             ArgumentCaptor<Document> documentCaptor = ArgumentCaptor.forClass(Document.class);
             when(documentRepository.save(documentCaptor.capture())).thenAnswer(invocation -> {
@@ -128,12 +141,7 @@ class DocumentProcessingServiceTest {
         @Test
         @DisplayName("Should infer MEETING_MINUTES from filename")
         void shouldInferMeetingMinutesFromFilename() {
-            MockMultipartFile file = new MockMultipartFile(
-                    "file",
-                    "samsung_meeting_minutes.pdf",
-                    "application/pdf",
-                    "content".getBytes()
-            );
+            UploadDescriptor file = upload("samsung_meeting_minutes.pdf", "content");
 
             ArgumentCaptor<Document> documentCaptor = ArgumentCaptor.forClass(Document.class);
             when(documentRepository.save(documentCaptor.capture())).thenAnswer(invocation -> {
@@ -150,12 +158,7 @@ class DocumentProcessingServiceTest {
         @Test
         @DisplayName("Should infer PROPOSAL from filename")
         void shouldInferProposalFromFilename() {
-            MockMultipartFile file = new MockMultipartFile(
-                    "file",
-                    "sales_proposal_v2.pdf",
-                    "application/pdf",
-                    "content".getBytes()
-            );
+            UploadDescriptor file = upload("sales_proposal_v2.pdf", "content");
 
             ArgumentCaptor<Document> documentCaptor = ArgumentCaptor.forClass(Document.class);
             when(documentRepository.save(documentCaptor.capture())).thenAnswer(invocation -> {
@@ -172,12 +175,7 @@ class DocumentProcessingServiceTest {
         @Test
         @DisplayName("Should infer QUOTATION from filename")
         void shouldInferQuotationFromFilename() {
-            MockMultipartFile file = new MockMultipartFile(
-                    "file",
-                    "price_quotation.pdf",
-                    "application/pdf",
-                    "content".getBytes()
-            );
+            UploadDescriptor file = upload("price_quotation.pdf", "content");
 
             ArgumentCaptor<Document> documentCaptor = ArgumentCaptor.forClass(Document.class);
             when(documentRepository.save(documentCaptor.capture())).thenAnswer(invocation -> {
@@ -194,12 +192,7 @@ class DocumentProcessingServiceTest {
         @Test
         @DisplayName("Should default to OTHER for unknown filename")
         void shouldDefaultToOtherForUnknownFilename() {
-            MockMultipartFile file = new MockMultipartFile(
-                    "file",
-                    "random_document.pdf",
-                    "application/pdf",
-                    "content".getBytes()
-            );
+            UploadDescriptor file = upload("random_document.pdf", "content");
 
             ArgumentCaptor<Document> documentCaptor = ArgumentCaptor.forClass(Document.class);
             when(documentRepository.save(documentCaptor.capture())).thenAnswer(invocation -> {
@@ -215,69 +208,59 @@ class DocumentProcessingServiceTest {
     }
 
     @Nested
-    @DisplayName("Save Chunks")
-    class SaveChunks {
+    @DisplayName("Resume From Checkpoint")
+    class ResumeFromCheckpoint {
 
         @Test
-        @DisplayName("Should save chunks with correct properties")
-        void shouldSaveChunksWithCorrectProperties() {
+        @DisplayName("Should requeue unembedded chunks instead of extracting again")
+        void shouldRequeueWithoutExtracting() {
             Document document = Document.builder()
                     .id(1L)
-                    .originalFileName("test.pdf")
+                    .originalFileName("proposal.pdf")
+                    .user(testUser)
+                    .processingStatus(ProcessingStatus.FAILED)
+                    .totalPages(2)
+                    .totalChunks(3)
+                    .chunksPersistedAt(LocalDateTime.now())
                     .build();
-
-            List<TextChunkingService.ChunkInfo> chunkInfos = List.of(
-                    TextChunkingService.ChunkInfo.builder()
-                            .content("Chunk 1 content")
-                            .chunkIndex(0)
-                            .startOffset(0)
-                            .endOffset(15)
-                            .tokenCount(4)
-                            .build(),
-                    TextChunkingService.ChunkInfo.builder()
-                            .content("Chunk 2 content")
-                            .chunkIndex(1)
-                            .startOffset(10)
-                            .endOffset(25)
-                            .tokenCount(4)
-                            .build()
-            );
-
-            when(documentChunkRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
-
-            List<DocumentChunk> result = documentProcessingService.saveChunks(document, chunkInfos, testUser);
-
-            assertThat(result).hasSize(2);
-            assertThat(result.get(0).getChunkIndex()).isEqualTo(0);
-            assertThat(result.get(1).getChunkIndex()).isEqualTo(1);
-            assertThat(result.get(0).getDocument()).isEqualTo(document);
-            assertThat(result.get(0).getUser()).isEqualTo(testUser);
+            when(documentRepository.findById(1L)).thenReturn(Optional.of(document));
+            when(vectorOutboxService.requeue(document)).thenReturn(1);
+            DocumentJobService.Lease lease = new DocumentJobService.Lease(5L, "node-a", 1);
+            when(documentJobService.whileHeld(eq(lease), any())).thenAnswer(invocation ->
+                    invocation.<Supplier<?>>getArgument(1).get());
+
+            documentProcessingService.processDocument(1L, null, lease);
+
+            assertThat(document.getProcessingStatus()).isEqualTo(ProcessingStatus.PROCESSING);
+            verify(vectorOutboxService).completeDrained(List.of(1L));
+            verify(vectorOutboxService, never()).deleteChunks(any());
+            verifyNoInteractions(pdfExtractionService, textChunkingService);
         }
 
         @Test
-        @DisplayName("Should generate UUID for chunk IDs")
-        void shouldGenerateUuidForChunkIds() {
+        @DisplayName("Should stop without writing once the job lease was lost")
+        void shouldStopWhenLeaseLost() {
             Document document = Document.builder()
                     .id(1L)
-                    .originalFileName("test.pdf")
+                    .originalFileName("proposal.pdf")
+                    .user(testUser)
+                    .processingStatus(ProcessingStatus.FAILED)
+                    .chunksPersistedAt(LocalDateTime.now())
                     .build();
+            when(documentRepository.findById(1L)).thenReturn(Optional.of(document));
+            DocumentJobService.Lease lease = new DocumentJobService.Lease(5L, "node-a", 1);
+            when(documentJobService.whileHeld(eq(lease), any()))
+                    .thenThrow(new JobLeaseLostException(5L, "node-a", 1));
 
-            List<TextChunkingService.ChunkInfo> chunkInfos = List.of(
-                    TextChunkingService.ChunkInfo.builder()
-                            .content("Content")
-                            .chunkIndex(0)
-                            .startOffset(0)
-                            .endOffset(7)
-                            .tokenCount(1)
-                            .build()
-            );
-
-            when(documentChunkRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+            assertThatThrownBy(() -> documentProcessingService.processDocument(1L, null, lease))
+                    .isInstanceOf(JobLeaseLostException.class);
 
-            List<DocumentChunk> result = documentProcessingService.saveChunks(document, chunkInfos, testUser);
-
-            assertThat(result.get(0).getId()).isNotNull();
-            assertThat(result.get(0).getId()).matches("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+            verify(vectorOutboxService, never()).requeue(any());
+            verify(vectorOutboxService, never()).completeDrained(any());
         }
     }
+
+    private UploadDescriptor upload(String fileName, String content) {
+        return new UploadDescriptor(fileName, "application/pdf", "PDF", content.getBytes().length, "hash");
+    }
 }
@@ -0,0 +1,99 @@
+package com.example.sales.service;
+
+import com.example.sales.model.dto.DocumentProgressEvent;
+import com.example.sales.model.entity.Document;
+import com.example.sales.model.entity.User;
+import com.example.sales.model.enums.ProcessingStage;
+import com.example.sales.model.enums.ProcessingStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class DocumentProgressServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final DocumentProgressService progressService = new DocumentProgressService(jdbcTemplate, objectMapper);
+
+    @Test
+    @DisplayName("subscribe - should drop a single-document stream once its snapshot is terminal")
+    void subscribe_TerminalSnapshotCompletesStream() {
+        progressService.subscribe(1L, 10L, () -> List.of(event(10L, ProcessingStage.COMPLETED)));
+
+        assertThat(progressService.subscriberCount(1L)).isZero();
+    }
+
+    @Test
+    @DisplayName("dispatch - should close a single-document stream on a terminal event and keep the user stream")
+    void dispatch_TerminalEventClosesDocumentStream() {
+        progressService.subscribe(1L, 10L, List::of);
+        progressService.subscribe(1L, null, List::of);
+
+        progressService.dispatch(1L, event(10L, ProcessingStage.EMBEDDING));
+        assertThat(progressService.subscriberCount(1L)).isEqualTo(2);
+
+        progressService.dispatch(1L, event(10L, ProcessingStage.COMPLETED));
+        assertThat(progressService.subscriberCount(1L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("dispatch - should ignore other documents and other users")
+    void dispatch_FiltersByDocumentAndUser() {
+        progressService.subscribe(1L, 10L, List::of);
+
+        progressService.dispatch(1L, event(11L, ProcessingStage.FAILED));
+        progressService.dispatch(2L, event(10L, ProcessingStage.FAILED));
+
+        assertThat(progressService.subscriberCount(1L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("publish - should notify every node instead of delivering locally")
+    void publish_NotifiesChannel() throws Exception {
+        progressService.subscribe(1L, 10L, List::of);
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+
+        progressService.publish(1L, event(10L, ProcessingStage.COMPLETED));
+
+        verify(jdbcTemplate).queryForList(eq("SELECT pg_notify(?, ?)"), eq("document_progress"), payload.capture());
+        DocumentProgressService.ProgressNotification notification =
+                objectMapper.readValue(payload.getValue(), DocumentProgressService.ProgressNotification.class);
+        assertThat(notification.userId()).isEqualTo(1L);
+        assertThat(notification.event().getDocumentId()).isEqualTo(10L);
+        assertThat(notification.event().getStage()).isEqualTo(ProcessingStage.COMPLETED);
+        // Delivery waits for the notification to come back through the listener
+        assertThat(progressService.subscriberCount(1L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("snapshot - should map the stored processing status to a stage")
+    void snapshot_MapsStatus() {
+        Document document = Document.builder()
+                .id(10L)
+                .user(User.builder().id(1L).build())
+                .originalFileName("proposal.pdf")
+                .processingStatus(ProcessingStatus.PENDING)
+                .build();
+
+        DocumentProgressEvent event = progressService.snapshot(document);
+
+        assertThat(event.getStage()).isEqualTo(ProcessingStage.QUEUED);
+        assertThat(event.getFileName()).isEqualTo("proposal.pdf");
+    }
+
+    private DocumentProgressEvent event(Long documentId, ProcessingStage stage) {
+        return DocumentProgressEvent.builder()
+                .documentId(documentId)
+                .stage(stage)
+                .build();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.DocumentNotResumableException;
+import com.example.sales.model.entity.Document;
+import com.example.sales.model.entity.User;
+import com.example.sales.model.enums.ProcessingStatus;
+import com.example.sales.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentUploadServiceTest {
+
+    @Mock
+    private DocumentProcessingService documentProcessingService;
+
+    @Mock
+    private DocumentJobService documentJobService;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private UploadSpoolService uploadSpoolService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private DocumentUploadService documentUploadService;
+
+    private User testUser;
+    private MockMultipartFile file;
+    private UploadDescriptor upload;
+
+    @BeforeEach
+    void setUp() {
+        testUser = User.builder().id(1L).email("test@example.com").build();
+        file = new MockMultipartFile("file", "proposal_v2.pdf", "application/pdf", "%PDF-1.4".getBytes());
+        upload = new UploadDescriptor("proposal_v2.pdf", "application/pdf", "PDF", 8, "abc123");
+    }
+
+    @Test
+    @DisplayName("submit - should alias an upload whose bytes were already processed and skip the pipeline")
+    void submit_AliasesProcessedDuplicate() {
+        Document processed = Document.builder().id(5L).totalChunks(12).build();
+        Document alias = Document.builder().id(6L).sourceDocument(processed).build();
+        when(documentRepository.findProcessedByContentHash(testUser, "abc123")).thenReturn(List.of(processed));
+        when(documentProcessingService.createDocument(upload, testUser, "DEAL-001", processed)).thenReturn(alias);
+
+        Document result = documentUploadService.submit(file, upload, testUser, "DEAL-001");
+
+        assertThat(result).isSameAs(alias);
+        verifyNoInteractions(uploadSpoolService, documentJobService);
+    }
+
+    @Test
+    @DisplayName("submit - should spool and queue new content in one transaction")
+    void submit_QueuesNewContent() {
+        SpooledUpload spooled = new SpooledUpload("abc123", Path.of("spool", "abc123"), 8);
+        Document document = Document.builder().id(7L).build();
+        when(documentRepository.findProcessedByContentHash(testUser, "abc123")).thenReturn(List.of());
+        when(uploadSpoolService.spool(file, upload)).thenReturn(spooled);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        when(documentProcessingService.createDocument(upload, testUser, null)).thenReturn(document);
+
+        Document result = documentUploadService.submit(file, upload, testUser, null);
+
+        assertThat(result).isSameAs(document);
+        verify(documentJobService).enqueue(document, spooled);
+        verify(transactionTemplate).execute(any());
+        verify(documentProcessingService, never()).createDocument(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("submitAll - should alias processed content and queue the rest in one transaction")
+    void submitAll_QueuesBatchInOneTransaction() {
+        MockMultipartFile otherFile =
+                new MockMultipartFile("files", "meeting_minutes.pdf", "application/pdf", "%PDF-1.5".getBytes());
+        UploadDescriptor otherUpload =
+                new UploadDescriptor("meeting_minutes.pdf", "application/pdf", "PDF", 8, "def456");
+        Document processed = Document.builder().id(5L).contentHash("abc123").build();
+        Document alias = Document.builder().id(6L).sourceDocument(processed).build();
+        Document queued = Document.builder().id(7L).build();
+        SpooledUpload spooled = new SpooledUpload("def456", Path.of("spool", "def456"), 8);
+
+        when(documentRepository.findProcessedByContentHashIn(eq(testUser), anyCollection()))
+                .thenReturn(List.of(processed));
+        when(uploadSpoolService.spool(otherFile, otherUpload)).thenReturn(spooled);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        when(documentProcessingService.createDocuments(eq(List.of(upload, otherUpload)),
+                eq(Arrays.asList(processed, null)), eq(testUser), eq("DEAL-001")))
+                .thenReturn(List.of(alias, queued));
+
+        List<Document> result = documentUploadService.submitAll(
+                List.of(file, otherFile), List.of(upload, otherUpload), testUser, "DEAL-001");
+
+        assertThat(result).containsExactly(alias, queued);
+        verify(uploadSpoolService, never()).spool(file, upload);
+        verify(documentJobService).enqueueAll(List.of(queued), List.of(spooled));
+        verify(documentProcessingService, never()).createDocument(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("submitAll - should queue identical files within a batch once and share the document")
+    void submitAll_SharesDocumentForRepeatedFiles() {
+        MockMultipartFile copy =
+                new MockMultipartFile("files", "proposal_v2 (1).pdf", "application/pdf", "%PDF-1.4".getBytes());
+        UploadDescriptor copyUpload =
+                new UploadDescriptor("proposal_v2 (1).pdf", "application/pdf", "PDF", 8, "abc123");
+        Document queued = Document.builder().id(7L).build();
+        SpooledUpload spooled = new SpooledUpload("abc123", Path.of("spool", "abc123"), 8);
+
+        when(documentRepository.findProcessedByContentHashIn(eq(testUser), anyCollection())).thenReturn(List.of());
+        when(uploadSpoolService.spool(file, upload)).thenReturn(spooled);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        when(documentProcessingService.createDocuments(eq(List.of(upload)),
+                eq(Arrays.asList((Document) null)), eq(testUser), isNull()))
+                .thenReturn(List.of(queued));
+
+        List<Document> result = documentUploadService.submitAll(
+                List.of(file, copy), List.of(upload, copyUpload), testUser, null);
+
+        assertThat(result).containsExactly(queued, queued);
+        verify(uploadSpoolService, never()).spool(copy, copyUpload);
+        verify(documentJobService).enqueueAll(List.of(queued), List.of(spooled));
+    }
+
+    @Test
+    @DisplayName("submitAll - should reject a batch over the file limit before storing anything")
+    void submitAll_RejectsOversizedBatch() {
+        ReflectionTestUtils.setField(documentUploadService, "batchMaxFiles", 1);
+
+        assertThatThrownBy(() -> documentUploadService.submitAll(
+                List.of(file, file), List.of(upload, upload), testUser, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(uploadSpoolService, documentJobService, transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("resume - should requeue a failed document whose chunks are checkpointed without the spool")
+    void resume_RequeuesCheckpointedDocument() {
+        Document failed = Document.builder().id(7L).contentHash("abc123").fileSize(8L)
+                .processingStatus(ProcessingStatus.FAILED).chunksPersistedAt(LocalDateTime.now()).build();
+
+        documentUploadService.resume(failed);
+
+        verify(documentJobService).resume(failed);
+        verifyNoInteractions(uploadSpoolService);
+    }
+
+    @Test
+    @DisplayName("resume - should reject a document that has not failed")
+    void resume_RejectsDocumentThatHasNotFailed() {
+        Document processing = Document.builder().id(7L).processingStatus(ProcessingStatus.PROCESSING).build();
+
+        assertThatThrownBy(() -> documentUploadService.resume(processing))
+                .isInstanceOf(DocumentNotResumableException.class);
+        verifyNoInteractions(documentJobService);
+    }
+}
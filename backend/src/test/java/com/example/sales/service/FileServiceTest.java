@@ -1,5 +1,6 @@
 package com.example.sales.service;
 
+import com.example.sales.exception.FileSizeExceededException;
 import com.example.sales.exception.InvalidFileTypeException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -125,4 +126,58 @@ class FileServiceTest {
 
         assertThat(fileService.isPdfFile(pdfFile)).isTrue();
     }
+
+    @Test
+    @DisplayName("describe - should detect type, size and hash in one pass")
+    void describe_CsvFile() {
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file",
+                "deals.csv",
+                "text/csv",
+                "Deal_ID,Company_Name\nDEAL-001,Samsung".getBytes()
+        );
+
+        UploadDescriptor upload = fileService.describe(csvFile);
+
+        assertThat(upload.fileName()).isEqualTo("deals.csv");
+        assertThat(upload.isCsv()).isTrue();
+        assertThat(upload.mimeType()).isEqualTo(fileService.detectMimeType(csvFile));
+        assertThat(upload.size()).isEqualTo(csvFile.getSize());
+        assertThat(upload.contentHash()).hasSize(64);
+    }
+
+    @Test
+    @DisplayName("describe - should detect PDF from the sniffed prefix")
+    void describe_PdfFile() {
+        MockMultipartFile pdfFile = new MockMultipartFile(
+                "file",
+                "document.pdf",
+                "application/pdf",
+                "%PDF-1.4".getBytes()
+        );
+
+        UploadDescriptor upload = fileService.describe(pdfFile);
+
+        assertThat(upload.isPdf()).isTrue();
+        assertThat(upload.mimeType()).isEqualTo("application/pdf");
+    }
+
+    @Test
+    @DisplayName("describe - should give identical content the same hash")
+    void describe_SameContentSameHash() {
+        byte[] content = "Deal_ID,Company_Name\nDEAL-001,Samsung".getBytes();
+        MockMultipartFile first = new MockMultipartFile("file", "a.csv", "text/csv", content);
+        MockMultipartFile second = new MockMultipartFile("file", "b.csv", "text/csv", content);
+
+        assertThat(fileService.describe(first).contentHash()).isEqualTo(fileService.describe(second).contentHash());
+    }
+
+    @Test
+    @DisplayName("validate - should reject oversized uploads")
+    void validate_TooLarge() {
+        UploadDescriptor upload = new UploadDescriptor("big.csv", "text/csv", "CSV", 11L * 1024 * 1024, "hash");
+
+        assertThatThrownBy(() -> fileService.validate(upload))
+                .isInstanceOf(FileSizeExceededException.class);
+    }
 }
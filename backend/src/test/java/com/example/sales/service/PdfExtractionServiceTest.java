@@ -1,11 +1,25 @@
 package com.example.sales.service;
 
 import com.example.sales.exception.PdfExtractionException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -16,7 +30,7 @@ class PdfExtractionServiceTest {
 
     @BeforeEach
     void setUp() {
-        pdfExtractionService = new PdfExtractionService();
+        pdfExtractionService = new PdfExtractionService(Runnable::run);
     }
 
     @Nested
@@ -59,6 +73,89 @@ class PdfExtractionServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Spooled Extraction")
+    class SpooledExtraction {
+
+        @TempDir
+        Path spoolDir;
+
+        @Test
+        @DisplayName("Should hand each PDF page to the consumer in order")
+        void shouldExtractSpooledPdfPageByPage() throws Exception {
+            Path path = spoolDir.resolve("doc");
+            try (PDDocument document = new PDDocument()) {
+                addPage(document, "First page");
+                addPage(document, "Second page");
+                document.save(path.toFile());
+            }
+            SpooledUpload upload = new SpooledUpload("doc", path, Files.size(path));
+            List<String> pages = new ArrayList<>();
+
+            Integer pageCount = pdfExtractionService.extractPages(upload, "deck.pdf", "application/pdf",
+                    (pageNumber, text) -> pages.add(pageNumber + ":" + text.trim()));
+
+            assertThat(pageCount).isEqualTo(2);
+            assertThat(pages).containsExactly("1:First page", "2:Second page");
+        }
+
+        @Test
+        @DisplayName("Should extract page ranges in parallel and deliver them in page order")
+        void shouldExtractRangesInParallel() throws Exception {
+            Path path = spoolDir.resolve("contract");
+            try (PDDocument document = new PDDocument()) {
+                for (int page = 1; page <= 7; page++) {
+                    addPage(document, "Clause " + page);
+                }
+                document.save(path.toFile());
+            }
+            SpooledUpload upload = new SpooledUpload("contract", path, Files.size(path));
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            PdfExtractionService parallelService = new PdfExtractionService(executor);
+            ReflectionTestUtils.setField(parallelService, "parallelPageThreshold", 4);
+            ReflectionTestUtils.setField(parallelService, "pagesPerRange", 2);
+            ReflectionTestUtils.setField(parallelService, "maxRangesInFlight", 2);
+            List<String> pages = new ArrayList<>();
+
+            try {
+                Integer pageCount = parallelService.extractPages(upload, "contract.pdf", "application/pdf",
+                        (pageNumber, text) -> pages.add(pageNumber + ":" + text.trim()));
+
+                assertThat(pageCount).isEqualTo(7);
+                assertThat(pages).containsExactly("1:Clause 1", "2:Clause 2", "3:Clause 3", "4:Clause 4",
+                        "5:Clause 5", "6:Clause 6", "7:Clause 7");
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Should hand a spooled text file over as a single page")
+        void shouldExtractSpooledTextAsSinglePage() throws Exception {
+            Path path = Files.writeString(spoolDir.resolve("notes"), "  Meeting notes  ");
+            SpooledUpload upload = new SpooledUpload("notes", path, Files.size(path));
+            List<String> pages = new ArrayList<>();
+
+            Integer pageCount = pdfExtractionService.extractPages(upload, "notes.txt", "text/plain",
+                    (pageNumber, text) -> pages.add(pageNumber + ":" + text));
+
+            assertThat(pageCount).isNull();
+            assertThat(pages).containsExactly("1:Meeting notes");
+        }
+
+        private void addPage(PDDocument document, String text) throws Exception {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                content.newLineAtOffset(72, 700);
+                content.showText(text);
+                content.endText();
+            }
+        }
+    }
+
     @Nested
     @DisplayName("Error Handling")
     class ErrorHandling {
@@ -47,7 +47,7 @@ class RagServiceTest {
 
     @BeforeEach
     void setUp() {
-        ragService = new RagService(vectorStore, chatClientBuilder);
+        ragService = new RagService(vectorStore, chatClientBuilder, new ResourceLimits(8, 4));
         ReflectionTestUtils.setField(ragService, "similarityThreshold", 0.75);
         ReflectionTestUtils.setField(ragService, "defaultTopK", 5);
 
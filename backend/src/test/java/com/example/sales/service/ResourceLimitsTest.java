@@ -0,0 +1,68 @@
+package com.example.sales.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class ResourceLimitsTest {
+
+    @Nested
+    @DisplayName("Permits")
+    class Permits {
+
+        @Test
+        @DisplayName("Should never let more callers than permits into a resource")
+        void shouldCapConcurrentCallers() {
+            ResourceLimits limits = new ResourceLimits(3, 1);
+            AtomicInteger inside = new AtomicInteger();
+            AtomicInteger peak = new AtomicInteger();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<CompletableFuture<Void>> calls = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    calls.add(CompletableFuture.runAsync(() -> limits.run(ResourceLimits.Resource.EMBEDDING, () -> {
+                        peak.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        sleep(5);
+                        inside.decrementAndGet();
+                    }), executor));
+                }
+                calls.forEach(CompletableFuture::join);
+            }
+
+            assertThat(peak.get()).isLessThanOrEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should release the permit when the call throws")
+        void shouldReleaseOnFailure() {
+            ResourceLimits limits = new ResourceLimits(1, 1);
+
+            assertThatThrownBy(() -> limits.run(ResourceLimits.Resource.CHAT, () -> {
+                throw new IllegalStateException("chat API unavailable");
+            })).isInstanceOf(IllegalStateException.class);
+
+            // With the only permit leaked, this call would block forever
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> limits.run(ResourceLimits.Resource.CHAT, () -> {}));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,28 +1,48 @@
 package com.example.sales.service;
 
+import com.example.sales.exception.CsvValidationException;
 import com.example.sales.model.dto.*;
 import com.example.sales.model.entity.Deal;
+import com.example.sales.model.entity.Document;
 import com.example.sales.model.entity.User;
 import com.example.sales.model.enums.BudgetStatus;
 import com.example.sales.model.enums.DealStage;
+import com.example.sales.model.enums.ProcessingStatus;
+import com.example.sales.repository.DealBulkLoader;
 import com.example.sales.repository.DealRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +63,18 @@ class SalesServiceTest {
     @Mock
     private DealRepository dealRepository;
 
+    @Mock
+    private DealBulkLoader dealBulkLoader;
+
+    @Mock
+    private DocumentUploadService documentUploadService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private SalesService salesService;
 
@@ -50,6 +82,8 @@ class SalesServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(salesService, "importBatchSize", 500);
+
         testUser = User.builder()
                 .id(1L)
                 .email("test@example.com")
@@ -71,11 +105,9 @@ class SalesServiceTest {
         Deal mockDeal = createMockDeal();
         List<Deal> parsedDeals = List.of(mockDeal);
 
-        when(fileService.getFileType(any(MultipartFile.class))).thenReturn("CSV");
-        when(fileService.isCsvFile(any(MultipartFile.class))).thenReturn(true);
-        doNothing().when(fileService).validateFile(any(MultipartFile.class));
-        when(csvParsingService.parseCsvFile(any(MultipartFile.class), eq(testUser))).thenReturn(parsedDeals);
-        when(dealRepository.saveAll(anyList())).thenReturn(parsedDeals);
+        stubUploads();
+        stubCsvBatches(parsedDeals);
+        when(dealRepository.upsertAll(anyList())).thenReturn(parsedDeals.size());
         when(probabilityCalculationService.calculateProbability(any(Deal.class)))
                 .thenReturn(createMockProbabilityResult());
         when(nbaGenerationService.generateActions(any(Deal.class)))
@@ -90,9 +122,10 @@ class SalesServiceTest {
         assertThat(response.getFiles().get(0).getStatus()).isEqualTo("PROCESSED");
         assertThat(response.getDeals()).hasSize(1);
 
-        verify(fileService).validateFile(csvFile);
-        verify(csvParsingService).parseCsvFile(csvFile, testUser);
-        verify(dealRepository).saveAll(parsedDeals);
+        verify(fileService).describe(csvFile);
+        verify(fileService).validate(any(UploadDescriptor.class));
+        verify(csvParsingService).streamCsvFile(eq(csvFile), eq(testUser), eq(500), any());
+        verify(dealRepository).upsertAll(parsedDeals);
     }
 
     @Test
@@ -106,10 +139,8 @@ class SalesServiceTest {
                 "%PDF-1.4".getBytes()
         );
 
-        when(fileService.getFileType(any(MultipartFile.class))).thenReturn("PDF");
-        when(fileService.isCsvFile(any(MultipartFile.class))).thenReturn(false);
-        doNothing().when(fileService).validateFile(any(MultipartFile.class));
-        when(dealRepository.saveAll(anyList())).thenReturn(List.of());
+        stubUploads();
+        stubPdfDocument();
 
         // When
         AnalyzeResponse response = salesService.analyze(List.of(pdfFile), testUser);
@@ -117,11 +148,11 @@ class SalesServiceTest {
         // Then
         assertThat(response.getFiles()).hasSize(1);
         assertThat(response.getFiles().get(0).getFileType()).isEqualTo("PDF");
-        assertThat(response.getFiles().get(0).getStatus()).isEqualTo("PROCESSED");
+        assertThat(response.getFiles().get(0).getStatus()).isEqualTo("PROCESSING");
         // PDF files don't generate deals (will be used for RAG in Stage 4)
         assertThat(response.getDeals()).isEmpty();
 
-        verify(csvParsingService, never()).parseCsvFile(any(), any());
+        verify(csvParsingService, never()).streamCsvFile(any(), any(), anyInt(), any());
     }
 
     @Test
@@ -138,13 +169,10 @@ class SalesServiceTest {
         Deal mockDeal = createMockDeal();
         List<Deal> parsedDeals = List.of(mockDeal);
 
-        when(fileService.getFileType(csvFile)).thenReturn("CSV");
-        when(fileService.getFileType(pdfFile)).thenReturn("PDF");
-        when(fileService.isCsvFile(csvFile)).thenReturn(true);
-        when(fileService.isCsvFile(pdfFile)).thenReturn(false);
-        doNothing().when(fileService).validateFile(any(MultipartFile.class));
-        when(csvParsingService.parseCsvFile(eq(csvFile), eq(testUser))).thenReturn(parsedDeals);
-        when(dealRepository.saveAll(anyList())).thenReturn(parsedDeals);
+        stubUploads();
+        stubPdfDocument();
+        stubCsvBatches(parsedDeals);
+        when(dealRepository.upsertAll(anyList())).thenReturn(parsedDeals.size());
         when(probabilityCalculationService.calculateProbability(any(Deal.class)))
                 .thenReturn(createMockProbabilityResult());
         when(nbaGenerationService.generateActions(any(Deal.class)))
@@ -155,7 +183,8 @@ class SalesServiceTest {
 
         // Then
         assertThat(response.getFiles()).hasSize(2);
-        verify(fileService, times(2)).validateFile(any(MultipartFile.class));
+        verify(fileService, times(2)).validate(any(UploadDescriptor.class));
+        verify(documentUploadService).submit(eq(pdfFile), any(UploadDescriptor.class), eq(testUser), isNull());
     }
 
     @Test
@@ -169,11 +198,9 @@ class SalesServiceTest {
         Deal mockDeal = createMockDeal();
         List<Deal> parsedDeals = List.of(mockDeal);
 
-        when(fileService.getFileType(any(MultipartFile.class))).thenReturn("CSV");
-        when(fileService.isCsvFile(any(MultipartFile.class))).thenReturn(true);
-        doNothing().when(fileService).validateFile(any(MultipartFile.class));
-        when(csvParsingService.parseCsvFile(any(MultipartFile.class), eq(testUser))).thenReturn(parsedDeals);
-        when(dealRepository.saveAll(anyList())).thenReturn(parsedDeals);
+        stubUploads();
+        stubCsvBatches(parsedDeals);
+        when(dealRepository.upsertAll(anyList())).thenReturn(parsedDeals.size());
         when(probabilityCalculationService.calculateProbability(any(Deal.class)))
                 .thenReturn(createMockProbabilityResult());
         when(nbaGenerationService.generateActions(any(Deal.class)))
@@ -218,11 +245,9 @@ class SalesServiceTest {
                 .factors(ProbabilityFactors.builder().positive(List.of()).negative(List.of()).build())
                 .build();
 
-        when(fileService.getFileType(any(MultipartFile.class))).thenReturn("CSV");
-        when(fileService.isCsvFile(any(MultipartFile.class))).thenReturn(true);
-        doNothing().when(fileService).validateFile(any(MultipartFile.class));
-        when(csvParsingService.parseCsvFile(any(MultipartFile.class), eq(testUser))).thenReturn(parsedDeals);
-        when(dealRepository.saveAll(anyList())).thenReturn(parsedDeals);
+        stubUploads();
+        stubCsvBatches(parsedDeals);
+        when(dealRepository.upsertAll(anyList())).thenReturn(parsedDeals.size());
         when(probabilityCalculationService.calculateProbability(mockDeal1)).thenReturn(prob1);
         when(probabilityCalculationService.calculateProbability(mockDeal2)).thenReturn(prob2);
         when(nbaGenerationService.generateActions(any(Deal.class)))
@@ -251,10 +276,8 @@ class SalesServiceTest {
                 "file", "notes.pdf", "application/pdf", "data".getBytes()
         );
 
-        when(fileService.getFileType(any(MultipartFile.class))).thenReturn("PDF");
-        when(fileService.isCsvFile(any(MultipartFile.class))).thenReturn(false);
-        doNothing().when(fileService).validateFile(any(MultipartFile.class));
-        when(dealRepository.saveAll(anyList())).thenReturn(List.of());
+        stubUploads();
+        stubPdfDocument();
 
         // When
         AnalyzeResponse response = salesService.analyze(List.of(pdfFile), testUser);
@@ -277,11 +300,9 @@ class SalesServiceTest {
         mockDeal.setDealStage(DealStage.CLOSED_WON);
         List<Deal> parsedDeals = List.of(mockDeal);
 
-        when(fileService.getFileType(any(MultipartFile.class))).thenReturn("CSV");
-        when(fileService.isCsvFile(any(MultipartFile.class))).thenReturn(true);
-        doNothing().when(fileService).validateFile(any(MultipartFile.class));
-        when(csvParsingService.parseCsvFile(any(MultipartFile.class), eq(testUser))).thenReturn(parsedDeals);
-        when(dealRepository.saveAll(anyList())).thenReturn(parsedDeals);
+        stubUploads();
+        stubCsvBatches(parsedDeals);
+        when(dealRepository.upsertAll(anyList())).thenReturn(parsedDeals.size());
         when(probabilityCalculationService.calculateProbability(any(Deal.class)))
                 .thenReturn(createMockProbabilityResult());
         when(nbaGenerationService.generateActions(any(Deal.class))).thenReturn(List.of());
@@ -305,11 +326,9 @@ class SalesServiceTest {
         mockDeal.setBudgetStatus(BudgetStatus.UNDER_REVIEW);
         List<Deal> parsedDeals = List.of(mockDeal);
 
-        when(fileService.getFileType(any(MultipartFile.class))).thenReturn("CSV");
-        when(fileService.isCsvFile(any(MultipartFile.class))).thenReturn(true);
-        doNothing().when(fileService).validateFile(any(MultipartFile.class));
-        when(csvParsingService.parseCsvFile(any(MultipartFile.class), eq(testUser))).thenReturn(parsedDeals);
-        when(dealRepository.saveAll(anyList())).thenReturn(parsedDeals);
+        stubUploads();
+        stubCsvBatches(parsedDeals);
+        when(dealRepository.upsertAll(anyList())).thenReturn(parsedDeals.size());
         when(probabilityCalculationService.calculateProbability(any(Deal.class)))
                 .thenReturn(createMockProbabilityResult());
         when(nbaGenerationService.generateActions(any(Deal.class))).thenReturn(List.of());
@@ -321,6 +340,301 @@ class SalesServiceTest {
         assertThat(response.getDeals().get(0).getBudgetStatus()).isEqualTo("Under Review");
     }
 
+    @Test
+    @DisplayName("analyze - should COPY deals through the bulk loader when requested")
+    void analyze_BulkLoad_CopiesBatchesAndReportsThroughput() {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "data".getBytes()
+        );
+        List<Deal> parsedDeals = List.of(createMockDeal());
+        DealBulkLoader.Session session = mock(DealBulkLoader.Session.class);
+
+        stubUploads();
+        stubCsvBatches(parsedDeals);
+        when(dealBulkLoader.open()).thenReturn(session);
+        when(session.finish()).thenReturn(new DealBulkLoader.BulkLoadResult(1, 1, 0.5));
+        when(probabilityCalculationService.calculateProbability(any(Deal.class)))
+                .thenReturn(createMockProbabilityResult());
+        when(nbaGenerationService.generateActions(any(Deal.class)))
+                .thenReturn(createMockActions());
+
+        // When
+        AnalyzeResponse response = salesService.analyze(List.of(csvFile), testUser, true);
+
+        // Then
+        assertThat(response.getDeals()).hasSize(1);
+        assertThat(response.getFiles().get(0).getRowsPerSecond()).isEqualTo(2.0);
+
+        verify(session).copy(parsedDeals);
+        verify(session).close();
+        verify(dealRepository, never()).upsertAll(anyList());
+    }
+
+    @Test
+    @DisplayName("analyze - should reuse stored analysis for deals whose fingerprint is unchanged")
+    void analyze_UnchangedDeal_ReusesStoredAnalysis() throws Exception {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "data".getBytes()
+        );
+        Deal mockDeal = createMockDeal();
+        mockDeal.setContentHash("hash-1");
+        DealAnalysisResponse storedAnalysis = DealAnalysisResponse.builder()
+                .dealId("DEAL-001")
+                .companyName("Samsung Electronics")
+                .probability(createMockProbabilityResult())
+                .nextBestActions(createMockActions())
+                .build();
+        DealRepository.DealSnapshot snapshot = mock(DealRepository.DealSnapshot.class);
+
+        stubUploads();
+        stubCsvBatches(List.of(mockDeal));
+        when(snapshot.getDealId()).thenReturn("DEAL-001");
+        when(snapshot.getContentHash()).thenReturn("hash-1");
+        when(snapshot.getAnalysisResult()).thenReturn(objectMapper.writeValueAsString(storedAnalysis));
+        when(snapshot.getAnalyzedOn()).thenReturn(LocalDate.now());
+        when(dealRepository.findSnapshots(testUser, List.of("DEAL-001"))).thenReturn(List.of(snapshot));
+
+        // When
+        AnalyzeResponse response = salesService.analyze(List.of(csvFile), testUser);
+
+        // Then
+        assertThat(response.getDeals()).hasSize(1);
+        assertThat(response.getDeals().get(0).getProbability().getSuccessRate()).isEqualTo(45);
+        assertThat(response.getSummary().getHighPriorityActions()).isEqualTo(1);
+
+        verify(dealRepository, never()).upsertAll(anyList());
+        verifyNoInteractions(probabilityCalculationService, nbaGenerationService);
+    }
+
+    @Test
+    @DisplayName("analyze - should re-score unchanged deals whose stored analysis is from an earlier day")
+    void analyze_UnchangedDealScoredYesterday_RecomputesAnalysis() {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "data".getBytes()
+        );
+        Deal mockDeal = createMockDeal();
+        mockDeal.setContentHash("hash-1");
+        DealRepository.DealSnapshot snapshot = mock(DealRepository.DealSnapshot.class);
+
+        stubUploads();
+        stubCsvBatches(List.of(mockDeal));
+        when(snapshot.getDealId()).thenReturn("DEAL-001");
+        when(snapshot.getContentHash()).thenReturn("hash-1");
+        when(snapshot.getAnalysisResult()).thenReturn("{}");
+        when(snapshot.getAnalyzedOn()).thenReturn(LocalDate.now().minusDays(1));
+        when(dealRepository.findSnapshots(testUser, List.of("DEAL-001"))).thenReturn(List.of(snapshot));
+        when(dealRepository.upsertAll(anyList())).thenReturn(1);
+        when(probabilityCalculationService.calculateProbability(any(Deal.class)))
+                .thenReturn(createMockProbabilityResult());
+        when(nbaGenerationService.generateActions(any(Deal.class)))
+                .thenReturn(createMockActions());
+
+        // When
+        salesService.analyze(List.of(csvFile), testUser);
+
+        // Then
+        verify(dealRepository).upsertAll(List.of(mockDeal));
+        assertThat(mockDeal.getAnalyzedOn()).isEqualTo(LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("analyze - should skip unchanged deals in bulk load mode as well")
+    void analyze_BulkLoad_SkipsUnchangedDeals() throws Exception {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "data".getBytes()
+        );
+        Deal mockDeal = createMockDeal();
+        mockDeal.setContentHash("hash-1");
+        DealAnalysisResponse storedAnalysis = DealAnalysisResponse.builder()
+                .dealId("DEAL-001")
+                .probability(createMockProbabilityResult())
+                .nextBestActions(createMockActions())
+                .build();
+        DealRepository.DealSnapshot snapshot = mock(DealRepository.DealSnapshot.class);
+        DealBulkLoader.Session session = mock(DealBulkLoader.Session.class);
+
+        stubUploads();
+        stubCsvBatches(List.of(mockDeal));
+        when(snapshot.getDealId()).thenReturn("DEAL-001");
+        when(snapshot.getContentHash()).thenReturn("hash-1");
+        when(snapshot.getAnalysisResult()).thenReturn(objectMapper.writeValueAsString(storedAnalysis));
+        when(snapshot.getAnalyzedOn()).thenReturn(LocalDate.now());
+        when(dealRepository.findSnapshots(testUser, List.of("DEAL-001"))).thenReturn(List.of(snapshot));
+        when(dealBulkLoader.open()).thenReturn(session);
+        when(session.finish()).thenReturn(new DealBulkLoader.BulkLoadResult(0, 0, 0.5));
+
+        // When
+        AnalyzeResponse response = salesService.analyze(List.of(csvFile), testUser, true);
+
+        // Then
+        assertThat(response.getDeals()).hasSize(1);
+        assertThat(response.getDeals().get(0).getProbability().getSuccessRate()).isEqualTo(45);
+        verify(session, never()).copy(anyList());
+        verifyNoInteractions(probabilityCalculationService, nbaGenerationService);
+    }
+
+    @Test
+    @DisplayName("analyze - should re-score and store deals whose fingerprint changed")
+    void analyze_ChangedDeal_RecomputesAnalysis() {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "data".getBytes()
+        );
+        Deal mockDeal = createMockDeal();
+        mockDeal.setContentHash("hash-2");
+        DealRepository.DealSnapshot snapshot = mock(DealRepository.DealSnapshot.class);
+
+        stubUploads();
+        stubCsvBatches(List.of(mockDeal));
+        when(snapshot.getDealId()).thenReturn("DEAL-001");
+        when(snapshot.getContentHash()).thenReturn("hash-1");
+        when(snapshot.getAnalysisResult()).thenReturn("{}");
+        when(dealRepository.findSnapshots(testUser, List.of("DEAL-001"))).thenReturn(List.of(snapshot));
+        when(dealRepository.upsertAll(anyList())).thenReturn(1);
+        when(probabilityCalculationService.calculateProbability(any(Deal.class)))
+                .thenReturn(createMockProbabilityResult());
+        when(nbaGenerationService.generateActions(any(Deal.class)))
+                .thenReturn(createMockActions());
+
+        // When
+        salesService.analyze(List.of(csvFile), testUser);
+
+        // Then
+        verify(dealRepository).upsertAll(List.of(mockDeal));
+        assertThat(mockDeal.getAnalysisResult()).contains("\"successRate\":45");
+    }
+
+    @Test
+    @DisplayName("analyze - should hand each analysis to the consumer and keep only the summary")
+    void analyze_WithConsumer_StreamsDeals() {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "data".getBytes()
+        );
+        List<Deal> parsedDeals = List.of(createMockDeal());
+        List<DealAnalysisResponse> streamed = new ArrayList<>();
+
+        stubUploads();
+        stubCsvBatches(parsedDeals);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            // Nothing may be streamed until the batch's transaction has returned
+            assertThat(streamed).isEmpty();
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        when(dealRepository.upsertAll(anyList())).thenReturn(parsedDeals.size());
+        when(probabilityCalculationService.calculateProbability(any(Deal.class)))
+                .thenReturn(createMockProbabilityResult());
+        when(nbaGenerationService.generateActions(any(Deal.class)))
+                .thenReturn(createMockActions());
+
+        // When
+        AnalyzeResponse response = salesService.analyze(List.of(csvFile), testUser, false, streamed::add);
+
+        // Then
+        InOrder inOrder = inOrder(csvParsingService, dealRepository);
+        inOrder.verify(csvParsingService).validateCsvFile(csvFile, testUser, 500);
+        inOrder.verify(dealRepository).upsertAll(parsedDeals);
+        assertThat(streamed).extracting(DealAnalysisResponse::getDealId).containsExactly("DEAL-001");
+        assertThat(response.getDeals()).isNull();
+        assertThat(response.getSummary().getTotalDeals()).isEqualTo(1);
+        assertThat(response.getSummary().getAvgProbability()).isEqualTo(45.0);
+        assertThat(response.getSummary().getHighPriorityActions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("analyze - should reject an invalid streamed file before saving or sending any deal")
+    void analyze_WithConsumer_InvalidFile_WritesNothing() {
+        // Given
+        MockMultipartFile csvFile = new MockMultipartFile(
+                "file", "deals.csv", "text/csv", "data".getBytes()
+        );
+        List<DealAnalysisResponse> streamed = new ArrayList<>();
+
+        stubUploads();
+        doThrow(new CsvValidationException(List.of(
+                new CsvValidationException.RowError(3, Map.of("Deal_ID", "required")),
+                new CsvValidationException.RowError(7, Map.of("Amount", "must be a number")))))
+                .when(csvParsingService).validateCsvFile(csvFile, testUser, 500);
+
+        // When / Then
+        assertThatThrownBy(() -> salesService.analyze(List.of(csvFile), testUser, false, streamed::add))
+                .isInstanceOfSatisfying(CsvValidationException.class, e ->
+                        assertThat(e.getRowErrors()).extracting(CsvValidationException.RowError::rowNumber)
+                                .containsExactly(3, 7));
+        assertThat(streamed).isEmpty();
+        verify(csvParsingService, never()).streamCsvFile(any(), any(), anyInt(), any());
+        verifyNoInteractions(dealRepository, transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("runAnalyzeJob - should commit batches, count failed rows and publish results")
+    void runAnalyzeJob_CommitsBatchesAndCompletes() throws Exception {
+        // Given
+        Path spooled = Files.createTempFile("analyze-job-", ".csv");
+        Files.writeString(spooled, "Deal_ID\nDEAL-001\nDEAL-002");
+        AnalyzeJob job = new AnalyzeJob(testUser.getId(),
+                List.of(new AnalyzeJob.SpooledCsv("deals.csv", spooled, Files.size(spooled))));
+        Deal mockDeal = createMockDeal();
+
+        doAnswer(invocation -> {
+            Consumer<List<CsvValidationException.RowError>> errorConsumer = invocation.getArgument(5);
+            Consumer<List<Deal>> batchConsumer = invocation.getArgument(4);
+            errorConsumer.accept(List.of(new CsvValidationException.RowError(3, Map.of("Deal_ID", "required"))));
+            batchConsumer.accept(List.of(mockDeal));
+            return null;
+        }).when(csvParsingService).streamCsv(any(InputStream.class), eq("deals.csv"), eq(testUser), eq(500), any(), any());
+        doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(dealRepository.upsertAll(anyList())).thenReturn(1);
+        when(probabilityCalculationService.calculateProbability(any(Deal.class)))
+                .thenReturn(createMockProbabilityResult());
+        when(nbaGenerationService.generateActions(any(Deal.class)))
+                .thenReturn(createMockActions());
+
+        // When
+        salesService.runAnalyzeJob(job, testUser);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.COMPLETED);
+        assertThat(job.getRowsProcessed()).isEqualTo(1);
+        assertThat(job.getRowsFailed()).isEqualTo(1);
+        assertThat(job.getResult().getDeals()).hasSize(1);
+        assertThat(job.getResult().getSummary().getTotalDeals()).isEqualTo(1);
+        assertThat(Files.exists(spooled)).isFalse();
+        verify(dealRepository).upsertAll(List.of(mockDeal));
+    }
+
+    private void stubUploads() {
+        when(fileService.describe(any(MultipartFile.class))).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            boolean pdf = file.getOriginalFilename().endsWith(".pdf");
+            return new UploadDescriptor(file.getOriginalFilename(), pdf ? "application/pdf" : "text/csv",
+                    pdf ? "PDF" : "CSV", file.getSize(), "hash");
+        });
+    }
+
+    private void stubPdfDocument() {
+        when(documentUploadService.submit(any(MultipartFile.class), any(UploadDescriptor.class), eq(testUser), isNull()))
+                .thenReturn(Document.builder().id(10L).build());
+    }
+
+    private void stubCsvBatches(List<Deal> deals) {
+        when(csvParsingService.streamCsvFile(any(MultipartFile.class), eq(testUser), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    Consumer<List<Deal>> batchConsumer = invocation.getArgument(3);
+                    batchConsumer.accept(deals);
+                    return deals.size();
+                });
+    }
+
     private Deal createMockDeal() {
         return Deal.builder()
                 .id(1L)
@@ -6,19 +6,23 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class TextChunkingServiceTest {
 
+    private Cl100kTokenizer tokenizer;
     private TextChunkingService textChunkingService;
 
     @BeforeEach
     void setUp() {
-        textChunkingService = new TextChunkingService();
-        ReflectionTestUtils.setField(textChunkingService, "chunkSize", 100);
-        ReflectionTestUtils.setField(textChunkingService, "chunkOverlap", 20);
+        tokenizer = new Cl100kTokenizer();
+        textChunkingService = new TextChunkingService(tokenizer);
+        ReflectionTestUtils.setField(textChunkingService, "chunkTokens", 25);
+        ReflectionTestUtils.setField(textChunkingService, "overlapTokens", 5);
     }
 
     @Nested
@@ -140,7 +144,7 @@ class TextChunkingServiceTest {
 
             // Chunks should typically end with punctuation
             for (int i = 0; i < chunks.size() - 1; i++) {
-                String content = chunks.get(i).getContent();
+                String content = chunks.get(i).getContent().toString();
                 boolean endsWithPunctuation = content.endsWith(".") ||
                         content.endsWith("!") ||
                         content.endsWith("?");
@@ -152,6 +156,27 @@ class TextChunkingServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Shared Text")
+    class SharedText {
+
+        @Test
+        @DisplayName("Should hand out chunk content as views of the buffered text")
+        void shouldReturnViews() {
+            String text = "This is a sample text for testing views. ".repeat(10);
+
+            List<TextChunkingService.ChunkInfo> chunks =
+                    textChunkingService.chunkText(text, "test.pdf");
+
+            assertThat(chunks).hasSizeGreaterThan(1);
+            assertThat(chunks).allSatisfy(chunk -> {
+                assertThat(chunk.getContent()).isInstanceOf(TextSlice.class);
+                assertThat(chunk.getContent().toString()).isEqualTo(
+                        text.substring(chunk.getStartOffset(), chunk.getEndOffset()).trim());
+            });
+        }
+    }
+
     @Nested
     @DisplayName("Text Cleaning")
     class TextCleaning {
@@ -186,6 +211,96 @@ class TextChunkingServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Page Streaming")
+    class PageStreaming {
+
+        @Test
+        @DisplayName("Should cut the same windows as chunking the joined pages at once")
+        void shouldMatchWholeDocumentChunking() {
+            String page1 = "Quarterly review with the buyer.  Budget is approved. ".repeat(4);
+            String page2 = "Security review is pending.\r\nLegal has the contract. ".repeat(3);
+            String page3 = "Next meeting is scheduled for Friday. ".repeat(5);
+
+            List<TextChunkingService.ChunkInfo> streamed = new ArrayList<>();
+            TextChunkingService.PageChunker chunker = textChunkingService.openChunker("test.pdf", streamed::add);
+            chunker.addPage(1, page1);
+            chunker.addPage(2, page2);
+            chunker.addPage(3, page3);
+            int count = chunker.finish();
+
+            List<TextChunkingService.ChunkInfo> whole = textChunkingService.chunkText(
+                    page1.trim() + "\n" + page2.trim() + "\n" + page3.trim(), "test.pdf");
+
+            assertThat(count).isEqualTo(whole.size());
+            assertThat(streamed).extracting(chunk -> chunk.getContent().toString())
+                    .containsExactlyElementsOf(whole.stream().map(chunk -> chunk.getContent().toString()).toList());
+            assertThat(streamed).extracting(TextChunkingService.ChunkInfo::getStartOffset)
+                    .containsExactlyElementsOf(whole.stream().map(TextChunkingService.ChunkInfo::getStartOffset).toList());
+        }
+
+        @Test
+        @DisplayName("Should cut the same windows when pages break after punctuation")
+        void shouldMatchWholeDocumentChunkingAcrossPunctuationBreaks() {
+            String page1 = "Budget is approved.\n\nLegal has the contract!\n \n".repeat(3) + "Signed.";
+            String page2 = "Security review is pending?\n \n \nNext meeting is on Friday.\n\t\n".repeat(3);
+            String page3 = "Renewal terms are agreed. \n \n".repeat(4);
+
+            List<TextChunkingService.ChunkInfo> streamed = new ArrayList<>();
+            TextChunkingService.PageChunker chunker = textChunkingService.openChunker("test.pdf", streamed::add);
+            chunker.addPage(1, page1);
+            chunker.addPage(2, page2);
+            chunker.addPage(3, page3);
+            chunker.finish();
+
+            List<TextChunkingService.ChunkInfo> whole = textChunkingService.chunkText(
+                    page1.trim() + "\n" + page2.trim() + "\n" + page3.trim(), "test.pdf");
+
+            assertThat(streamed).extracting(chunk -> chunk.getContent().toString())
+                    .containsExactlyElementsOf(whole.stream().map(chunk -> chunk.getContent().toString()).toList());
+            assertThat(streamed).extracting(TextChunkingService.ChunkInfo::getTokenCount)
+                    .containsExactlyElementsOf(whole.stream().map(TextChunkingService.ChunkInfo::getTokenCount).toList())
+                    .allSatisfy(tokens -> assertThat(tokens).isLessThanOrEqualTo(25));
+        }
+
+        @Test
+        @DisplayName("Should hand out each page's windows before the next page arrives")
+        void shouldCutWindowsPerPage() {
+            List<TextChunkingService.ChunkInfo> chunks = new ArrayList<>();
+            TextChunkingService.PageChunker chunker = textChunkingService.openChunker("test.pdf", chunks::add);
+
+            chunker.addPage(1, "Quarterly review with the buyer. Budget is approved. ".repeat(4));
+            int afterFirstPage = chunks.size();
+            chunker.addPage(2, "Security review is pending. Legal has the contract. ".repeat(4));
+
+            assertThat(afterFirstPage).isPositive();
+            assertThat(chunks).hasSizeGreaterThan(afterFirstPage);
+            assertThat(chunks.get(chunks.size() - 1).getPageEndNumber()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should tag each chunk with the pages it spans")
+        void shouldTagPageRanges() {
+            List<TextChunkingService.ChunkInfo> chunks = new ArrayList<>();
+            TextChunkingService.PageChunker chunker = textChunkingService.openChunker("test.pdf", chunks::add);
+            chunker.addPage(1, "Alpha sentence on the first page. ".repeat(2));
+            chunker.addPage(2, "   ");
+            chunker.addPage(3, "Gamma sentence on the third page. ".repeat(4));
+            chunker.finish();
+
+            assertThat(chunks).isNotEmpty();
+            assertThat(chunks.get(0).getPageNumber()).isEqualTo(1);
+            assertThat(chunks).anySatisfy(chunk -> {
+                assertThat(chunk.getPageNumber()).isEqualTo(1);
+                assertThat(chunk.getPageEndNumber()).isEqualTo(3);
+            });
+            TextChunkingService.ChunkInfo last = chunks.get(chunks.size() - 1);
+            assertThat(last.getPageNumber()).isEqualTo(3);
+            assertThat(last.getPageEndNumber()).isEqualTo(3);
+            assertThat(chunks).noneMatch(chunk -> Integer.valueOf(2).equals(chunk.getPageNumber()));
+        }
+    }
+
     @Nested
     @DisplayName("Short Text")
     class ShortText {
@@ -199,19 +314,102 @@ class TextChunkingServiceTest {
                     textChunkingService.chunkText(text, "test.pdf");
 
             assertThat(chunks).hasSize(1);
-            assertThat(chunks.get(0).getContent()).isEqualTo("Short text.");
+            assertThat(chunks.get(0).getContent()).hasToString("Short text.");
         }
 
         @Test
         @DisplayName("Should handle text exactly at chunk size")
         void shouldHandleTextAtChunkSize() {
-            // Create text of exactly chunk size (100 characters)
-            String text = "A".repeat(100);
+            // "word" and " word" are one token each, so this is exactly 25 tokens
+            String text = "word ".repeat(25);
 
             List<TextChunkingService.ChunkInfo> chunks =
                     textChunkingService.chunkText(text, "test.pdf");
 
-            assertThat(chunks).isNotEmpty();
+            assertThat(chunks).hasSize(1);
+            assertThat(chunks.get(0).getTokenCount()).isEqualTo(25);
+        }
+
+        @Test
+        @DisplayName("Should handle a long run without whitespace")
+        void shouldHandleRunWithoutWhitespace() {
+            String text = "A".repeat(1_000);
+
+            List<TextChunkingService.ChunkInfo> chunks =
+                    textChunkingService.chunkText(text, "test.pdf");
+
+            assertThat(chunks).hasSizeGreaterThan(1);
+            assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.getContent()).matches("A+"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Token Windows")
+    class TokenWindows {
+
+        @Test
+        @DisplayName("Should report the cl100k token count of each chunk")
+        void shouldReportExactTokenCount() {
+            String text = "Quarterly review with the buyer. Budget is approved. ".repeat(10);
+
+            List<TextChunkingService.ChunkInfo> chunks =
+                    textChunkingService.chunkText(text, "test.pdf");
+
+            assertThat(chunks).hasSizeGreaterThan(1);
+            assertThat(chunks).allSatisfy(chunk -> {
+                assertThat(chunk.getTokenCount()).isEqualTo(windowTokens(TextNormalizer.normalize(text), chunk));
+                assertThat(chunk.getTokenCount()).isLessThanOrEqualTo(25);
+            });
+        }
+
+        @Test
+        @DisplayName("Should only settle tokens that text appended later cannot change")
+        void shouldSettleOnlyFinalTokens() {
+            // Punctuation takes the line breaks after it and whitespace runs grow across a cut
+            String text = "Budget is approved.\n\nLegal has it. \n \nSigned!\n\t\n 2024 \n \n \nDone";
+            int[] whole = tokenizer.tokenEnds(text);
+
+            for (int cut = 1; cut < text.length(); cut++) {
+                String probe = text.substring(0, cut);
+                int[] ends = tokenizer.tokenEnds(probe);
+                int settled = textChunkingService.settledTokens(probe, ends, false);
+
+                assertThat(Arrays.copyOf(ends, settled)).as("probe %s", probe)
+                        .isEqualTo(Arrays.copyOf(whole, settled));
+            }
+        }
+
+        @Test
+        @DisplayName("Should size Korean chunks by tokens rather than characters")
+        void shouldSizeKoreanChunksByTokens() {
+            String text = "서울 고객사와 분기 계약 검토 회의를 진행했습니다. 예산은 승인되었고 보안 검토가 남아 있습니다. ".repeat(8);
+
+            List<TextChunkingService.ChunkInfo> chunks =
+                    textChunkingService.chunkText(text, "minutes.pdf");
+
+            assertThat(chunks).hasSizeGreaterThan(1);
+            assertThat(chunks).allSatisfy(chunk -> {
+                assertThat(chunk.getTokenCount()).isEqualTo(windowTokens(TextNormalizer.normalize(text), chunk));
+                assertThat(chunk.getTokenCount()).isLessThanOrEqualTo(25);
+                // Hangul takes well over the four characters per token English averages
+                assertThat(chunk.getTokenCount()).isGreaterThan(chunk.getContent().length() / 4);
+            });
+        }
+    }
+
+    // The chunker counts the tokens of its window, tokenized from the window start, that overlap the content
+    private int windowTokens(String text, TextChunkingService.ChunkInfo chunk) {
+        String rest = text.substring(chunk.getStartOffset());
+        int from = rest.indexOf(chunk.getContent().toString());
+        int to = from + chunk.getContent().length();
+        int count = 0;
+        int tokenStart = 0;
+        for (int tokenEnd : tokenizer.tokenEnds(rest)) {
+            if (tokenStart < to && tokenEnd > from) {
+                count++;
+            }
+            tokenStart = tokenEnd;
         }
+        return count;
     }
 }
@@ -0,0 +1,115 @@
+package com.example.sales.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextNormalizerTest {
+
+    @Nested
+    @DisplayName("Equivalence")
+    class Equivalence {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"", "   ", "plain text", "a\r\nb", "a\rb", "a\r\r\nb", "a\n\r\nb", "a\n\n\n\nb",
+                "a\n \n \n \nb", "a \t \tb", "\t lead and trail \t\n", "a\n\n\n", "\n\n\nstart",
+                "a \n\n\n b", "x\f\n\n\ny\u000b", "\u00a0nbsp\u3000", "a\r\n\r\n\r\nb", "end\r"})
+        @DisplayName("Should match the regex chain on edge cases")
+        void matchesRegexChain(String text) {
+            assertThat(TextNormalizer.normalize(text)).isEqualTo(regexClean(text));
+        }
+
+        @Test
+        @DisplayName("Should match the regex chain on random whitespace-heavy text")
+        void matchesRegexChainOnRandomText() {
+            Random random = new Random(42);
+            char[] alphabet = {'a', 'b', '.', ' ', ' ', '\t', '\n', '\n', '\r', '\f', ' '};
+            TextNormalizer normalizer = new TextNormalizer();
+
+            for (int run = 0; run < 2_000; run++) {
+                char[] text = new char[random.nextInt(64)];
+                for (int i = 0; i < text.length; i++) {
+                    text[i] = alphabet[random.nextInt(alphabet.length)];
+                }
+                String input = new String(text);
+
+                StringBuilder reused = new StringBuilder("prefix");
+                int appended = normalizer.appendNormalized(input, reused);
+
+                assertThat(reused.substring(6)).isEqualTo(regexClean(input));
+                assertThat(appended).isEqualTo(reused.length() - 6);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Throughput")
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    class Throughput {
+
+        @Test
+        @DisplayName("Compare throughput against the replaceAll chain on a 5 MB extract")
+        void compareThroughput() {
+            String text = generateExtract(5 * 1024 * 1024);
+            TextNormalizer normalizer = new TextNormalizer();
+            StringBuilder out = new StringBuilder(text.length());
+
+            for (int warmup = 0; warmup < 5; warmup++) {
+                regexClean(text);
+                out.setLength(0);
+                normalizer.appendNormalized(text, out);
+            }
+
+            int rounds = 10;
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                regexClean(text);
+            }
+            double regexMillis = (System.nanoTime() - start) / 1_000_000.0 / rounds;
+
+            start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                out.setLength(0);
+                normalizer.appendNormalized(text, out);
+            }
+            double normalizerMillis = (System.nanoTime() - start) / 1_000_000.0 / rounds;
+
+            System.out.printf("replaceAll chain: %.1f ms per 5 MB extract%n", regexMillis);
+            System.out.printf("TextNormalizer:   %.1f ms per 5 MB extract (%.1fx)%n",
+                    normalizerMillis, regexMillis / normalizerMillis);
+
+            assertThat(out.toString()).isEqualTo(regexClean(text));
+        }
+    }
+
+    // The chain TextChunkingService used before TextNormalizer
+    private String regexClean(String text) {
+        return text
+                .replaceAll("\\r\\n", "\n")
+                .replaceAll("\\r", "\n")
+                .replaceAll("\\n{3,}", "\n\n")
+                .replaceAll("[ \\t]+", " ")
+                .trim();
+    }
+
+    // PDFBox-like output: CRLF line ends, column padding and blank runs between sections
+    private String generateExtract(int size) {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder(size + 128);
+        while (text.length() < size) {
+            text.append("Section ").append(random.nextInt(100)).append(".\t\tTerms  and   conditions apply")
+                    .append(random.nextBoolean() ? "\r\n" : "\n");
+            if (random.nextInt(5) == 0) {
+                text.append("\r\n\r\n\r\n   \t");
+            }
+        }
+        return text.toString();
+    }
+}
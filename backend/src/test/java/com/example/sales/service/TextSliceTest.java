@@ -0,0 +1,31 @@
+package com.example.sales.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextSliceTest {
+
+    @Test
+    @DisplayName("Should read through to the range of the shared text")
+    void shouldReadRange() {
+        TextSlice slice = new TextSlice("Budget is approved.", 7, 18);
+
+        assertThat(slice.length()).isEqualTo(11);
+        assertThat(slice.charAt(0)).isEqualTo('i');
+        assertThat(slice).hasToString("is approved");
+        assertThat(slice.subSequence(3, 11)).hasToString("approved");
+    }
+
+    @Test
+    @DisplayName("Should reject indexes outside the range")
+    void shouldRejectOutOfRange() {
+        TextSlice slice = new TextSlice("Budget is approved.", 7, 18);
+
+        assertThatThrownBy(() -> slice.charAt(11)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> slice.subSequence(5, 12)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> new TextSlice("short", 2, 9)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
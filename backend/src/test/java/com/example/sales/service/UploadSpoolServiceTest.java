@@ -0,0 +1,135 @@
+package com.example.sales.service;
+
+import com.example.sales.repository.DocumentJobRepository;
+import com.example.sales.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSpoolServiceTest {
+
+    @TempDir
+    Path spoolDir;
+
+    @Mock
+    private DocumentJobRepository documentJobRepository;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    private UploadSpoolService uploadSpoolService;
+
+    @BeforeEach
+    void setUp() {
+        uploadSpoolService = new UploadSpoolService(documentJobRepository, documentRepository);
+        ReflectionTestUtils.setField(uploadSpoolService, "spoolDir", spoolDir);
+        ReflectionTestUtils.setField(uploadSpoolService, "retentionHours", 24L);
+    }
+
+    @Test
+    @DisplayName("spool - should store the upload under its content hash")
+    void spool_StoresUnderContentHash() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "notes.pdf", "application/pdf", "%PDF-1.4".getBytes());
+
+        SpooledUpload spooled = uploadSpoolService.spool(file, descriptor("abc123", file));
+
+        assertThat(spooled.path()).isEqualTo(spoolDir.resolve("abc123"));
+        assertThat(Files.readAllBytes(spooled.path())).isEqualTo("%PDF-1.4".getBytes());
+        assertThat(spooled.size()).isEqualTo(8);
+        try (var files = Files.list(spoolDir)) {
+            assertThat(files).containsExactly(spoolDir.resolve("abc123"));
+        }
+    }
+
+    @Test
+    @DisplayName("spool - should reuse an existing file with the same content hash")
+    void spool_ReusesExistingFile() throws Exception {
+        Path existing = Files.writeString(spoolDir.resolve("abc123"), "original");
+        Files.setLastModifiedTime(existing, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        MockMultipartFile file = new MockMultipartFile("file", "notes.pdf", "application/pdf", "original".getBytes());
+
+        SpooledUpload spooled = uploadSpoolService.spool(file, descriptor("abc123", file));
+
+        assertThat(spooled.path()).isEqualTo(existing);
+        assertThat(Files.getLastModifiedTime(existing).toInstant())
+                .isAfter(Instant.now().minus(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    @DisplayName("spool - should reject uploads without a content hash")
+    void spool_RejectsMissingHash() {
+        MockMultipartFile file = new MockMultipartFile("file", "notes.pdf", "application/pdf", "data".getBytes());
+
+        assertThatThrownBy(() -> uploadSpoolService.spool(file, descriptor(null, file)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("purgeExpired - should delete only files past the retention window")
+    void purgeExpired_DeletesOldFiles() throws Exception {
+        Path stale = Files.writeString(spoolDir.resolve("stale"), "old");
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofHours(25))));
+        Path fresh = Files.writeString(spoolDir.resolve("fresh"), "new");
+        when(documentJobRepository.findUnfinishedContentHashes(Set.of("stale"))).thenReturn(List.of());
+        when(documentRepository.findResumableContentHashes(Set.of("stale"))).thenReturn(List.of());
+
+        uploadSpoolService.purgeExpired();
+
+        assertThat(stale).doesNotExist();
+        assertThat(fresh).exists();
+    }
+
+    @Test
+    @DisplayName("purgeExpired - should keep expired files that queued jobs or resumable documents still need")
+    void purgeExpired_KeepsReferencedFiles() throws Exception {
+        Instant old = Instant.now().minus(Duration.ofHours(25));
+        Path queued = Files.writeString(spoolDir.resolve("queued"), "a");
+        Path resumable = Files.writeString(spoolDir.resolve("resumable"), "b");
+        Path orphan = Files.writeString(spoolDir.resolve("orphan"), "c");
+        for (Path file : List.of(queued, resumable, orphan)) {
+            Files.setLastModifiedTime(file, FileTime.from(old));
+        }
+        Set<String> expired = Set.of("queued", "resumable", "orphan");
+        when(documentJobRepository.findUnfinishedContentHashes(expired)).thenReturn(List.of("queued"));
+        when(documentRepository.findResumableContentHashes(expired)).thenReturn(List.of("resumable"));
+
+        uploadSpoolService.purgeExpired();
+
+        assertThat(queued).exists();
+        assertThat(resumable).exists();
+        assertThat(orphan).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("checkSpoolDir - should fail fast when the spool directory is blank")
+    void checkSpoolDir_RequiresDirectory() {
+        ReflectionTestUtils.setField(uploadSpoolService, "spoolDir", null);
+
+        assertThatThrownBy(() -> uploadSpoolService.checkSpoolDir())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("upload.spool.dir");
+    }
+
+    private UploadDescriptor descriptor(String hash, MockMultipartFile file) {
+        return new UploadDescriptor(file.getOriginalFilename(), file.getContentType(), "PDF", file.getSize(), hash);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.sales.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+
+    @Test
+    @DisplayName("Should set the version 7 and RFC variant bits")
+    void versionAndVariant() {
+        UUID uuid = UuidV7.randomUuid();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should embed the millisecond timestamp in the leading 48 bits")
+    void embedsTimestamp() {
+        long epochMillis = 1_767_225_600_000L;
+
+        UUID uuid = UuidV7.fromTimestamp(epochMillis);
+
+        assertThat(uuid.getMostSignificantBits() >>> 16).isEqualTo(epochMillis);
+    }
+
+    @Test
+    @DisplayName("Should sort later timestamps after earlier ones as strings")
+    void sortsByTime() {
+        String earlier = UuidV7.fromTimestamp(1_767_225_600_000L).toString();
+        String later = UuidV7.fromTimestamp(1_767_225_600_001L).toString();
+
+        assertThat(later).isGreaterThan(earlier);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.sales.service;
+
+import com.example.sales.exception.EmbeddingGenerationException;
+import com.example.sales.model.entity.Document;
+import com.example.sales.model.entity.DocumentChunk;
+import com.example.sales.model.entity.User;
+import com.example.sales.model.entity.VectorOutboxEntry;
+import com.example.sales.model.enums.ProcessingStatus;
+import com.example.sales.model.enums.VectorOutboxOperation;
+import com.example.sales.repository.DocumentChunkRepository;
+import com.example.sales.repository.DocumentRepository;
+import com.example.sales.repository.VectorOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VectorOutboxServiceTest {
+
+    @Mock
+    private VectorOutboxRepository vectorOutboxRepository;
+
+    @Mock
+    private DocumentChunkRepository documentChunkRepository;
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private EmbeddingService embeddingService;
+
+    @Mock
+    private DocumentProgressService documentProgressService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private VectorOutboxService vectorOutboxService;
+
+    private User testUser;
+    private Document document;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(vectorOutboxService, "maxAttempts", 2);
+        ReflectionTestUtils.setField(vectorOutboxService, "retryBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(vectorOutboxService, "claimSeconds", 300L);
+        testUser = User.builder().id(1L).email("test@example.com").build();
+        document = Document.builder()
+                .id(10L)
+                .originalFileName("proposal.pdf")
+                .user(testUser)
+                .processingStatus(ProcessingStatus.PROCESSING)
+                .build();
+    }
+
+    @Test
+    @DisplayName("saveChunks - should write an upsert entry for every stored chunk")
+    void saveChunks_WritesOutboxEntries() {
+        List<TextChunkingService.ChunkInfo> chunkInfos = List.of(
+                TextChunkingService.ChunkInfo.builder().content("Chunk 1").chunkIndex(0).build(),
+                TextChunkingService.ChunkInfo.builder().content("Chunk 2").chunkIndex(1).build());
+        when(documentChunkRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<DocumentChunk> saved = vectorOutboxService.saveChunks(document, chunkInfos, testUser);
+
+        ArgumentCaptor<List<VectorOutboxEntry>> entries = ArgumentCaptor.forClass(List.class);
+        verify(vectorOutboxRepository).saveAll(entries.capture());
+        assertThat(saved).extracting(DocumentChunk::getChunkIndex).containsExactly(0, 1);
+        assertThat(saved.get(0).getId()).matches("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+        assertThat(entries.getValue())
+                .extracting(VectorOutboxEntry::getChunkId)
+                .containsExactly(saved.get(0).getId(), saved.get(1).getId());
+        assertThat(entries.getValue())
+                .allMatch(entry -> entry.getOperation() == VectorOutboxOperation.UPSERT && entry.getDocumentId() == 10L);
+    }
+
+    @Test
+    @DisplayName("flush - should let the latest entry per chunk decide and clear the batch")
+    void flush_CoalescesByChunk() {
+        DocumentChunk kept = chunk("chunk-1");
+        List<VectorOutboxEntry> entries = List.of(
+                entry(1L, "chunk-1", VectorOutboxOperation.UPSERT),
+                entry(2L, "chunk-2", VectorOutboxOperation.UPSERT),
+                entry(3L, "chunk-2", VectorOutboxOperation.DELETE));
+        stubTransactions();
+        when(vectorOutboxRepository.lockPending(any(LocalDateTime.class), eq(2), eq(10))).thenReturn(entries);
+        when(documentChunkRepository.findWithDocumentByIdIn(List.of("chunk-1"))).thenReturn(List.of(kept));
+        when(documentChunkRepository.findExistingIds(List.of("chunk-1"))).thenReturn(List.of("chunk-1"));
+
+        VectorOutboxService.FlushResult result = vectorOutboxService.flush(10);
+
+        assertThat(result.entries()).isEqualTo(3);
+        assertThat(result.documentIds()).containsExactly(10L);
+        verify(embeddingService).storeChunks(argThat(chunks -> chunks.size() == 1
+                && chunks.get(0).getId().equals("chunk-1")), eq(1L));
+        verify(embeddingService).deleteChunks(List.of("chunk-2"));
+        verify(documentChunkRepository).markEmbedded(List.of("chunk-1"));
+        verify(vectorOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    @DisplayName("flush - should claim entries in their own transaction and embed outside it")
+    void flush_EmbedsOutsideTransactions() {
+        VectorOutboxEntry entry = entry(1L, "chunk-1", VectorOutboxOperation.UPSERT);
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> inTransaction(inTransaction,
+                () -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null)));
+        doAnswer(invocation -> inTransaction(inTransaction, () -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        })).when(transactionTemplate).executeWithoutResult(any());
+        when(vectorOutboxRepository.lockPending(any(LocalDateTime.class), eq(2), eq(10))).thenReturn(List.of(entry));
+        when(documentChunkRepository.findWithDocumentByIdIn(List.of("chunk-1"))).thenReturn(List.of(chunk("chunk-1")));
+        when(documentChunkRepository.findExistingIds(List.of("chunk-1"))).thenReturn(List.of("chunk-1"));
+        doAnswer(invocation -> {
+            assertThat(inTransaction).isFalse();
+            return null;
+        }).when(embeddingService).storeChunks(anyList(), eq(1L));
+
+        vectorOutboxService.flush(10);
+
+        // The claim hides the entry from other flushers after its row lock is released
+        assertThat(entry.getAvailableAt()).isAfter(LocalDateTime.now().plusSeconds(290));
+        verify(vectorOutboxRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("flush - should retry a failed batch per document so one bad document does not hold back others")
+    void flush_IsolatesFailingDocument() {
+        Document other = Document.builder().id(11L).user(testUser).processingStatus(ProcessingStatus.PROCESSING).build();
+        VectorOutboxEntry good = entry(1L, "chunk-1", VectorOutboxOperation.UPSERT);
+        VectorOutboxEntry poison = entry(2L, "chunk-9", VectorOutboxOperation.UPSERT);
+        poison.setDocumentId(11L);
+        DocumentChunk poisonChunk = chunk("chunk-9");
+        poisonChunk.setDocument(other);
+        stubTransactions();
+        when(vectorOutboxRepository.lockPending(any(LocalDateTime.class), eq(2), eq(10)))
+                .thenReturn(List.of(good, poison));
+        when(documentChunkRepository.findWithDocumentByIdIn(List.of("chunk-1", "chunk-9")))
+                .thenReturn(List.of(chunk("chunk-1"), poisonChunk));
+        doAnswer(invocation -> {
+            List<EmbeddingService.ChunkWithMetadata> chunks = invocation.getArgument(0);
+            if (chunks.stream().anyMatch(chunk -> chunk.getId().equals("chunk-9"))) {
+                throw new EmbeddingGenerationException("input too long");
+            }
+            return null;
+        }).when(embeddingService).storeChunks(anyList(), eq(1L));
+        when(documentChunkRepository.findExistingIds(List.of("chunk-1"))).thenReturn(List.of("chunk-1"));
+        when(documentChunkRepository.findExistingIds(List.of("chunk-9"))).thenReturn(List.of("chunk-9"));
+        when(vectorOutboxRepository.findAllById(List.of(2L))).thenReturn(List.of(poison));
+
+        VectorOutboxService.FlushResult result = vectorOutboxService.flush(10);
+
+        assertThat(result.documentIds()).containsExactly(10L, 11L);
+        verify(documentChunkRepository).markEmbedded(List.of("chunk-1"));
+        verify(vectorOutboxRepository).deleteAllByIdInBatch(List.of(1L));
+        assertThat(poison.getAttempts()).isEqualTo(1);
+        assertThat(poison.getLastError()).isEqualTo("input too long");
+        assertThat(good.getAttempts()).isZero();
+    }
+
+    @Test
+    @DisplayName("flush - should keep failed entries with a backoff and fail documents out of attempts")
+    void flush_RetriesAndFailsExhaustedDocument() {
+        VectorOutboxEntry entry = entry(1L, "chunk-1", VectorOutboxOperation.UPSERT);
+        entry.setAttempts(1);
+        stubTransactions();
+        when(vectorOutboxRepository.lockPending(any(LocalDateTime.class), eq(2), eq(10))).thenReturn(List.of(entry));
+        when(documentChunkRepository.findWithDocumentByIdIn(List.of("chunk-1"))).thenReturn(List.of(chunk("chunk-1")));
+        doThrow(new EmbeddingGenerationException("rate limited")).when(embeddingService).storeChunks(anyList(), eq(1L));
+        when(documentChunkRepository.findExistingIds(List.of("chunk-1"))).thenReturn(List.of("chunk-1"));
+        when(vectorOutboxRepository.findAllById(List.of(1L))).thenReturn(List.of(entry));
+        when(documentRepository.findById(10L)).thenReturn(Optional.of(document));
+
+        vectorOutboxService.flush(10);
+
+        assertThat(entry.getAttempts()).isEqualTo(2);
+        assertThat(entry.getAvailableAt()).isAfter(LocalDateTime.now().plusSeconds(50));
+        assertThat(entry.getAvailableAt()).isBefore(LocalDateTime.now().plusSeconds(70));
+        assertThat(document.getProcessingStatus()).isEqualTo(ProcessingStatus.FAILED);
+        verify(vectorOutboxRepository, never()).deleteAllByIdInBatch(any());
+        verify(documentChunkRepository, never()).markEmbedded(any());
+    }
+
+    @Test
+    @DisplayName("flush - should queue a delete for a chunk removed while its vector was being written")
+    void flush_DeletesVectorOfChunkRemovedDuringWrite() {
+        VectorOutboxEntry entry = entry(1L, "chunk-1", VectorOutboxOperation.UPSERT);
+        stubTransactions();
+        when(vectorOutboxRepository.lockPending(any(LocalDateTime.class), eq(2), eq(10))).thenReturn(List.of(entry));
+        when(documentChunkRepository.findWithDocumentByIdIn(List.of("chunk-1"))).thenReturn(List.of(chunk("chunk-1")));
+        // deleteChunks committed, and its delete may already be applied, before this flush's upsert landed
+        when(documentChunkRepository.findExistingIds(List.of("chunk-1"))).thenReturn(List.of());
+
+        vectorOutboxService.flush(10);
+
+        ArgumentCaptor<List<VectorOutboxEntry>> entries = ArgumentCaptor.forClass(List.class);
+        InOrder order = inOrder(embeddingService, vectorOutboxRepository);
+        order.verify(embeddingService).storeChunks(anyList(), eq(1L));
+        order.verify(vectorOutboxRepository).saveAll(entries.capture());
+        assertThat(entries.getValue()).singleElement().satisfies(delete -> {
+            assertThat(delete.getChunkId()).isEqualTo("chunk-1");
+            assertThat(delete.getDocumentId()).isEqualTo(10L);
+            assertThat(delete.getOperation()).isEqualTo(VectorOutboxOperation.DELETE);
+        });
+        verify(documentChunkRepository, never()).markEmbedded(any());
+        verify(vectorOutboxRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    private void stubTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private <T> T inTransaction(AtomicBoolean flag, Supplier<T> work) {
+        flag.set(true);
+        try {
+            return work.get();
+        } finally {
+            flag.set(false);
+        }
+    }
+
+    private DocumentChunk chunk(String id) {
+        return DocumentChunk.builder()
+                .id(id)
+                .document(document)
+                .user(testUser)
+                .chunkIndex(0)
+                .content("content")
+                .build();
+    }
+
+    private VectorOutboxEntry entry(Long id, String chunkId, VectorOutboxOperation operation) {
+        return VectorOutboxEntry.builder()
+                .id(id)
+                .chunkId(chunkId)
+                .documentId(10L)
+                .operation(operation)
+                .build();
+    }
+}